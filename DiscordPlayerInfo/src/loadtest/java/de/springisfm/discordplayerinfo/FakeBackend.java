@@ -0,0 +1,595 @@
+package de.springisfm.discordplayerinfo;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.cacheddata.CachedDataManager;
+import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.model.group.Group;
+import net.luckperms.api.model.group.GroupManager;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.types.InheritanceNode;
+import net.luckperms.api.util.Tristate;
+import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import sun.reflect.ReflectionFactory;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Simulierter Server für den Lasttest
+ * Stellt Bukkit-Server, Spieler und LuckPerms über dynamische Proxies bereit. Nur die
+ * Methoden, die das Plugin tatsächlich aufruft, sind implementiert; alle anderen liefern
+ * Standardwerte. Speicherzugriffe (LuckPerms-Laden, Offline-Spieler-Lookup) werden mit
+ * einer konfigurierbaren Latenz verzögert. Ein eigener Thread übernimmt die Rolle des
+ * Server-Hauptthreads (Scheduler-Tasks und Events).
+ */
+public class FakeBackend {
+    private static final String[] GROUPS = {"default", "member", "vip", "mod", "admin"};
+    
+    private final int knownPlayers;
+    private final int maxPlayers;
+    private final long storageLatencyMillis;
+    private final long lookupLatencyMillis;
+    private final double mspt;
+    private final Random random = new Random(42);
+    
+    private final FakePlayer[] players;
+    private final Map<String, FakePlayer> playersByName = new ConcurrentHashMap<>();
+    private final Map<UUID, FakePlayer> playersByUUID = new ConcurrentHashMap<>();
+    private final Map<UUID, Player> online = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<UserDataRecalculateEvent>> recalculateHandlers = new CopyOnWriteArrayList<>();
+    private final ExecutorService storageExecutor;
+    private final ScheduledExecutorService mainThread;
+    private final Logger logger = Logger.getLogger("LoadTestServer");
+    private final World world;
+    private final Server server;
+    private final LuckPerms luckPerms;
+    
+    public FakeBackend(int knownPlayers, int maxPlayers, long storageLatencyMillis, long lookupLatencyMillis, double mspt) {
+        this.knownPlayers = knownPlayers;
+        this.maxPlayers = maxPlayers;
+        this.storageLatencyMillis = storageLatencyMillis;
+        this.lookupLatencyMillis = lookupLatencyMillis;
+        this.mspt = mspt;
+        this.storageExecutor = Executors.newCachedThreadPool(daemonThreads("loadtest-storage-"));
+        this.mainThread = Executors.newSingleThreadScheduledExecutor(daemonThreads("loadtest-main-"));
+        this.world = proxy(World.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName": return "world";
+                case "getUID": return UUID.nameUUIDFromBytes("world".getBytes(StandardCharsets.UTF_8));
+                default: return null;
+            }
+        });
+        
+        this.players = new FakePlayer[knownPlayers];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < knownPlayers; i++) {
+            String name = "Player" + i;
+            UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+            FakePlayer player = new FakePlayer(uuid, name, GROUPS[weightedGroup()],
+                    now - (long) random.nextInt(365) * 86_400_000L, now - random.nextInt(86_400_000));
+            players[i] = player;
+            playersByName.put(name.toLowerCase(), player);
+            playersByUUID.put(uuid, player);
+        }
+        
+        this.server = createServer();
+        this.luckPerms = createLuckPerms();
+    }
+    
+    public Server getServer() {
+        return server;
+    }
+    
+    /**
+     * Erstellt eine Plugin-Instanz, die an diesen simulierten Server gebunden ist
+     * JavaPlugin lässt sich nur über den PluginClassLoader eines echten Servers konstruieren.
+     * Wie bei MockBukkit wird die Instanz deshalb ohne Konstruktoraufruf angelegt und
+     * anschließend über die paketinterne init-Methode von JavaPlugin initialisiert. Das
+     * Plugin selbst braucht dafür keinen eigenen Konstruktor.
+     * 
+     * @param dataFolder Datenordner des Plugins
+     * @return Plugin-Instanz, bereit für onEnable()
+     */
+    public DiscordPlayerInfo createPlugin(File dataFolder) {
+        PluginDescriptionFile description = new PluginDescriptionFile("DiscordPlayerInfo", "loadtest",
+                DiscordPlayerInfo.class.getName());
+        try {
+            Constructor<?> objectConstructor = Object.class.getDeclaredConstructor();
+            Constructor<?> constructor = ReflectionFactory.getReflectionFactory()
+                    .newConstructorForSerialization(DiscordPlayerInfo.class, objectConstructor);
+            DiscordPlayerInfo plugin = (DiscordPlayerInfo) constructor.newInstance();
+            
+            // Die Signatur von init() unterscheidet sich zwischen Bukkit- und Paper-Versionen,
+            // daher werden die Argumente anhand ihrer Typen zugeordnet
+            Method init = null;
+            for (Method method : JavaPlugin.class.getDeclaredMethods()) {
+                if (method.getName().equals("init")
+                        && (init == null || method.getParameterCount() > init.getParameterCount())) {
+                    init = method;
+                }
+            }
+            if (init == null) {
+                throw new IllegalStateException("JavaPlugin.init() nicht gefunden");
+            }
+            
+            Class<?>[] types = init.getParameterTypes();
+            Object[] args = new Object[types.length];
+            File jarFile = new File(dataFolder, "DiscordPlayerInfo.jar");
+            boolean dataFolderAssigned = false;
+            for (int i = 0; i < types.length; i++) {
+                Class<?> type = types[i];
+                if (type == Server.class) {
+                    args[i] = server;
+                } else if (type.isInstance(description)) {
+                    args[i] = description;
+                } else if (type == File.class) {
+                    args[i] = dataFolderAssigned ? jarFile : dataFolder;
+                    dataFolderAssigned = true;
+                } else if (type == ClassLoader.class) {
+                    args[i] = DiscordPlayerInfo.class.getClassLoader();
+                } else if (type == Logger.class) {
+                    args[i] = Logger.getLogger(description.getName());
+                }
+                // PluginLoader und sonstige Parameter bleiben null
+            }
+            init.setAccessible(true);
+            init.invoke(plugin, args);
+            return plugin;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Plugin konnte nicht initialisiert werden", e);
+        }
+    }
+    
+    /**
+     * Gibt den Namen eines zufälligen Online-Spielers zurück
+     * 
+     * @param random Zufallsgenerator des aufrufenden Threads
+     * @return Spielername oder null, wenn niemand online ist
+     */
+    public String randomOnlineName(Random random) {
+        List<Player> snapshot = new ArrayList<>(online.values());
+        return snapshot.isEmpty() ? null : snapshot.get(random.nextInt(snapshot.size())).getName();
+    }
+    
+    /**
+     * Gibt den Namen eines zufälligen bekannten Spielers zurück (online oder offline)
+     * 
+     * @param random Zufallsgenerator des aufrufenden Threads
+     * @return Spielername
+     */
+    public String randomKnownName(Random random) {
+        return players[random.nextInt(knownPlayers)].name;
+    }
+    
+    /**
+     * Lässt die ersten Spieler ohne Events beitreten (Stand vor dem Aktivieren des Plugins)
+     * 
+     * @param count Anzahl der Online-Spieler
+     */
+    public void populate(int count) {
+        for (int i = 0; i < Math.min(count, knownPlayers); i++) {
+            online.put(players[i].uuid, players[i].proxy);
+        }
+    }
+    
+    /**
+     * Simuliert einen Join oder Quit, sodass die Anzahl der Online-Spieler um den Zielwert schwankt
+     * 
+     * @param target Angestrebte Anzahl der Online-Spieler
+     */
+    public synchronized void churn(int target) {
+        boolean join = online.size() < target || (online.size() == target && random.nextBoolean());
+        if (join && online.size() < knownPlayers) {
+            FakePlayer player;
+            do {
+                player = players[random.nextInt(knownPlayers)];
+            } while (online.containsKey(player.uuid));
+            player.lastPlayed = System.currentTimeMillis();
+            online.put(player.uuid, player.proxy);
+            fireEvent(new PlayerJoinEvent(player.proxy, null));
+        } else if (!online.isEmpty()) {
+            List<Player> snapshot = new ArrayList<>(online.values());
+            Player player = snapshot.get(random.nextInt(snapshot.size()));
+            fireEvent(new PlayerQuitEvent(player, null));
+            online.remove(player.getUniqueId());
+            playersByUUID.get(player.getUniqueId()).lastPlayed = System.currentTimeMillis();
+        }
+    }
+    
+    /**
+     * Bewegt einen zufälligen Online-Spieler um bis zu 16 Blöcke und meldet dies wie Bukkit
+     */
+    public synchronized void moveRandomPlayer() {
+        List<Player> snapshot = new ArrayList<>(online.values());
+        if (snapshot.isEmpty()) return;
+        
+        FakePlayer player = playersByUUID.get(snapshot.get(random.nextInt(snapshot.size())).getUniqueId());
+        Location from = player.location;
+        double x = Math.max(-2000, Math.min(2000, from.getX() + random.nextInt(33) - 16));
+        double z = Math.max(-2000, Math.min(2000, from.getZ() + random.nextInt(33) - 16));
+        Location to = new Location(world, x, 64, z);
+        player.location = to;
+        fireEvent(new PlayerMoveEvent(player.proxy, from, to));
+    }
+    
+    /**
+     * Ändert die primäre Gruppe eines zufälligen Spielers und meldet dies wie LuckPerms
+     */
+    public synchronized void changeRandomRank() {
+        FakePlayer player = players[random.nextInt(knownPlayers)];
+        player.primaryGroup = GROUPS[weightedGroup()];
+        UserDataRecalculateEvent event = proxy(UserDataRecalculateEvent.class, (method, args) ->
+                method.getName().equals("getUser") ? player.user : null);
+        for (Consumer<UserDataRecalculateEvent> handler : recalculateHandlers) {
+            handler.accept(event);
+        }
+    }
+    
+    /**
+     * Führt eine Aufgabe regelmäßig im simulierten Hauptthread aus
+     * 
+     * @param task Aufgabe
+     * @param periodMicros Abstand in Mikrosekunden
+     * @return Handle zum Abbrechen
+     */
+    public ScheduledFuture<?> scheduleOnMainThread(Runnable task, long periodMicros) {
+        return mainThread.scheduleAtFixedRate(task, 0, periodMicros, TimeUnit.MICROSECONDS);
+    }
+    
+    public void shutdown() {
+        mainThread.shutdownNow();
+        storageExecutor.shutdownNow();
+    }
+    
+    private int weightedGroup() {
+        int roll = random.nextInt(100);
+        if (roll < 60) return 0;
+        if (roll < 85) return 1;
+        if (roll < 95) return 2;
+        if (roll < 99) return 3;
+        return 4;
+    }
+    
+    private void fireEvent(Event event) {
+        // Wie der Bukkit-EventBus: alle @EventHandler-Methoden mit passendem Parametertyp aufrufen
+        for (Listener listener : listeners) {
+            for (Method method : listener.getClass().getMethods()) {
+                if (method.isAnnotationPresent(EventHandler.class) && method.getParameterCount() == 1
+                        && method.getParameterTypes()[0].isInstance(event)) {
+                    try {
+                        method.invoke(listener, event);
+                    } catch (ReflectiveOperationException e) {
+                        logger.warning("Event handler " + method.getName() + " failed: " + e.getCause());
+                    }
+                }
+            }
+        }
+    }
+    
+    private Server createServer() {
+        PluginManager pluginManager = proxy(PluginManager.class, (method, args) -> {
+            if (method.getName().equals("registerEvents")) {
+                listeners.add((Listener) args[0]);
+            }
+            // Essentials ist eine konkrete Plugin-Klasse und kann nicht simuliert werden
+            return null;
+        });
+        
+        ServicesManager servicesManager = proxy(ServicesManager.class, (method, args) -> {
+            if (method.getName().equals("getRegistration") && args[0] == LuckPerms.class) {
+                return new RegisteredServiceProvider<>(LuckPerms.class, luckPerms, ServicePriority.Normal, null);
+            }
+            return null;
+        });
+        
+        BukkitScheduler scheduler = proxy(BukkitScheduler.class, (method, args) -> {
+            if (method.getName().equals("runTaskTimer") && args[1] instanceof Runnable) {
+                // Ein Tick entspricht 50 ms
+                ScheduledFuture<?> future = mainThread.scheduleAtFixedRate((Runnable) args[1],
+                        (long) args[2] * 50, Math.max(1, (long) args[3]) * 50, TimeUnit.MILLISECONDS);
+                return proxy(BukkitTask.class, (m, a) -> {
+                    if (m.getName().equals("cancel")) future.cancel(false);
+                    if (m.getName().equals("isCancelled")) return future.isCancelled();
+                    return null;
+                });
+            }
+            return null;
+        });
+        
+        return proxy(Server.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName": return "LoadTest";
+                case "getVersion": return "loadtest";
+                case "getBukkitVersion": return "1.20.2-R0.1-SNAPSHOT";
+                case "getLogger": return logger;
+                case "getOnlinePlayers": return Collections.unmodifiableCollection(new ArrayList<>(online.values()));
+                case "getMaxPlayers": return maxPlayers;
+                case "getPluginManager": return pluginManager;
+                case "getServicesManager": return servicesManager;
+                case "getScheduler": return scheduler;
+                case "isPrimaryThread": return Thread.currentThread().getName().startsWith("loadtest-main-");
+                case "getTPS": return new double[]{Math.min(20.0, 1000.0 / Math.max(50.0, mspt)), 20.0, 20.0};
+                case "getAverageTickTime": return mspt;
+                case "getWorlds": return Collections.singletonList(world);
+                case "getWorld": return "world".equals(args[0]) ? world : null;
+                case "getPlayer":
+                    return args[0] instanceof UUID ? online.get(args[0]) : null;
+                case "getOfflinePlayer":
+                    if (args[0] instanceof UUID) {
+                        FakePlayer player = playersByUUID.get(args[0]);
+                        return player != null ? player.proxy : unknownPlayer(args[0].toString());
+                    }
+                    return lookupByName((String) args[0]);
+                default: return null;
+            }
+        });
+    }
+    
+    private OfflinePlayer lookupByName(String name) {
+        FakePlayer player = playersByName.get(name.toLowerCase());
+        if (player != null && online.containsKey(player.uuid)) {
+            return player.proxy;
+        }
+        
+        // Offline-Spieler werden vom Server aus dem Usercache bzw. von der Festplatte gelesen
+        sleep(lookupLatencyMillis);
+        return player != null ? player.proxy : unknownPlayer(name);
+    }
+    
+    private OfflinePlayer unknownPlayer(String name) {
+        UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8));
+        return proxy(OfflinePlayer.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName": return name;
+                case "getUniqueId": return uuid;
+                default: return null;
+            }
+        });
+    }
+    
+    private LuckPerms createLuckPerms() {
+        UserManager userManager = proxy(UserManager.class, (method, args) -> {
+            FakePlayer player = args != null && args.length > 0 ? playersByUUID.get(args[0]) : null;
+            switch (method.getName()) {
+                case "loadUser":
+                    // LuckPerms lädt den User bei jedem Aufruf aus dem Speicher
+                    return CompletableFuture.supplyAsync(() -> {
+                        sleep(storageLatencyMillis);
+                        return player != null ? player.user : null;
+                    }, storageExecutor);
+                case "getUser":
+                    if (args[0] instanceof String) {
+                        FakePlayer named = playersByName.get(((String) args[0]).toLowerCase());
+                        return named != null && online.containsKey(named.uuid) ? named.user : null;
+                    }
+                    return player != null && online.containsKey(player.uuid) ? player.user : null;
+                case "isLoaded": return player != null && online.containsKey(player.uuid);
+                case "lookupUniqueId":
+                    // Namensauflösung über den LuckPerms-Speicher
+                    return CompletableFuture.supplyAsync(() -> {
+                        sleep(storageLatencyMillis);
+                        FakePlayer named = playersByName.get(((String) args[0]).toLowerCase());
+                        return named != null ? named.uuid : null;
+                    }, storageExecutor);
+                default: return null;
+            }
+        });
+        
+        Map<String, Group> groups = new ConcurrentHashMap<>();
+        for (int i = 0; i < GROUPS.length; i++) {
+            String name = GROUPS[i];
+            int weight = i * 10;
+            CachedMetaData metaData = proxy(CachedMetaData.class, (method, args) ->
+                    method.getName().equals("getPrefix") ? "[" + name.toUpperCase() + "] " : null);
+            CachedDataManager cachedData = proxy(CachedDataManager.class, (method, args) ->
+                    method.getName().equals("getMetaData") ? metaData : null);
+            groups.put(name, proxy(Group.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getName": return name;
+                    case "getWeight": return OptionalInt.of(weight);
+                    case "getCachedData": return cachedData;
+                    case "getNodes": return Collections.emptyList();
+                    default: return null;
+                }
+            }));
+        }
+        GroupManager groupManager = proxy(GroupManager.class, (method, args) ->
+                method.getName().equals("getGroup") ? groups.get(args[0]) : null);
+        
+        EventBus eventBus = proxy(EventBus.class, (method, args) -> {
+            if (method.getName().equals("subscribe") && args.length == 3 && args[1] == UserDataRecalculateEvent.class) {
+                @SuppressWarnings("unchecked")
+                Consumer<UserDataRecalculateEvent> handler = (Consumer<UserDataRecalculateEvent>) args[2];
+                recalculateHandlers.add(handler);
+            }
+            return proxy(EventSubscription.class, (m, a) -> null);
+        });
+        
+        return proxy(LuckPerms.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getUserManager": return userManager;
+                case "getGroupManager": return groupManager;
+                case "getEventBus": return eventBus;
+                default: return null;
+            }
+        });
+    }
+    
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Erstellt einen Proxy, der alle Aufrufe an den Handler weiterreicht. Für primitive
+     * Rückgabetypen wird bei null der jeweilige Standardwert geliefert.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T proxy(Class<T> type, ProxyHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeBackend.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals": return self == args[0];
+                case "hashCode": return System.identityHashCode(self);
+                case "toString": return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                default: break;
+            }
+            Object result = handler.handle(method, args);
+            return result != null ? result : defaultValue(method.getReturnType());
+        });
+    }
+    
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0.0;
+        if (type == float.class) return 0.0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        return 0;
+    }
+    
+    @FunctionalInterface
+    interface ProxyHandler {
+        Object handle(Method method, Object[] args);
+    }
+    
+    /**
+     * Zustand eines simulierten Spielers samt Bukkit- und LuckPerms-Sicht
+     */
+    private class FakePlayer {
+        private final UUID uuid;
+        private final String name;
+        private final long firstPlayed;
+        private volatile Location location;
+        private final Player proxy;
+        private final User user;
+        private volatile String primaryGroup;
+        private volatile long lastPlayed;
+        
+        FakePlayer(UUID uuid, String name, String primaryGroup, long firstPlayed, long lastPlayed) {
+            this.uuid = uuid;
+            this.name = name;
+            this.primaryGroup = primaryGroup;
+            this.firstPlayed = firstPlayed;
+            this.lastPlayed = lastPlayed;
+            this.location = new Location(world, random.nextInt(4000) - 2000, 64, random.nextInt(4000) - 2000);
+            this.proxy = proxy(Player.class, this::handlePlayer);
+            this.user = proxy(User.class, this::handleUser);
+        }
+        
+        private Object handlePlayer(Method method, Object[] args) {
+            boolean isOnline = online.containsKey(uuid);
+            switch (method.getName()) {
+                case "getName": return name;
+                case "getDisplayName": return name;
+                case "getUniqueId": return uuid;
+                case "isOnline": return isOnline;
+                case "hasPlayedBefore": return true;
+                case "getFirstPlayed": return firstPlayed;
+                case "getLastPlayed": return lastPlayed;
+                case "getPlayer": return isOnline ? proxy : null;
+                case "getWorld": return world;
+                case "getLocation": return location;
+                default: return null;
+            }
+        }
+        
+        private Object handleUser(Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getUniqueId": return uuid;
+                case "getUsername": return name;
+                case "getPrimaryGroup": return primaryGroup;
+                case "getNodes": return inheritanceNodes();
+                case "getCachedData": return cachedData();
+                default: return null;
+            }
+        }
+        
+        private Collection<Node> inheritanceNodes() {
+            String group = primaryGroup;
+            InheritanceNode node = proxy(InheritanceNode.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getGroupName": return group;
+                    case "getKey": return "group." + group;
+                    default: return null;
+                }
+            });
+            return Collections.singletonList(node);
+        }
+        
+        private CachedDataManager cachedData() {
+            String group = primaryGroup;
+            CachedPermissionData permissionData = proxy(CachedPermissionData.class, (method, args) -> {
+                if (!method.getName().equals("checkPermission")) return null;
+                String permission = (String) args[0];
+                if (group.equals("admin") || permission.equals("group." + group)) return Tristate.TRUE;
+                return Tristate.UNDEFINED;
+            });
+            return proxy(CachedDataManager.class, (method, args) ->
+                    method.getName().equals("getPermissionData") ? permissionData : null);
+        }
+    }
+}
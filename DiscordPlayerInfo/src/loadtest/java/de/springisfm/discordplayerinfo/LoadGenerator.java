@@ -0,0 +1,308 @@
+package de.springisfm.discordplayerinfo;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lastgenerator für den Lasttest
+ * Jeder Worker-Thread simuliert einen Bot, der in einer geschlossenen Schleife Anfragen
+ * nach dem eingestellten Mix sendet. Gemessen werden nur Anfragen nach der Aufwärmphase.
+ */
+public class LoadGenerator {
+    public static final String[] REQUEST_TYPES = {"status", "list", "player", "batch", "permissions", "nearby"};
+    
+    private final String baseUrl;
+    private final String apiKey;
+    private final FakeBackend backend;
+    private final int[] mix;
+    private final int mixTotal;
+    private final double hotFraction;
+    private final String accept;
+    private final AtomicBoolean measuring = new AtomicBoolean(false);
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final List<Worker> workers = new ArrayList<>();
+    
+    public LoadGenerator(String baseUrl, String apiKey, FakeBackend backend, Map<String, Integer> mix, double hotFraction,
+                         ResponseFormat format) {
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.backend = backend;
+        this.hotFraction = hotFraction;
+        this.accept = format.getContentType();
+        this.mix = new int[REQUEST_TYPES.length];
+        int total = 0;
+        for (int i = 0; i < REQUEST_TYPES.length; i++) {
+            this.mix[i] = mix.getOrDefault(REQUEST_TYPES[i], 0);
+            total += this.mix[i];
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Request mix is empty");
+        }
+        this.mixTotal = total;
+    }
+    
+    /**
+     * Startet die Worker-Threads
+     * 
+     * @param concurrency Anzahl paralleler Bots
+     * @return Thread-IDs der Worker (werden bei der Allokationsmessung ausgenommen)
+     */
+    public long[] start(int concurrency) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(concurrency);
+        long[] threadIds = new long[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(i);
+            workers.add(worker);
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                worker.run();
+            }, "loadtest-client-" + i);
+            thread.setDaemon(true);
+            threadIds[i] = thread.getId();
+            worker.thread = thread;
+            thread.start();
+        }
+        started.await();
+        return threadIds;
+    }
+    
+    public void startMeasuring() {
+        measuring.set(true);
+    }
+    
+    public void stop() throws InterruptedException {
+        measuring.set(false);
+        running.set(false);
+        for (Worker worker : workers) {
+            worker.thread.join(5000);
+        }
+    }
+    
+    /**
+     * Fasst die Messwerte aller Worker pro Anfragetyp zusammen
+     * 
+     * @return Ergebnisse pro Typ plus "total"
+     */
+    public Map<String, Result> collect() {
+        Map<String, Result> results = new LinkedHashMap<>();
+        Result total = new Result();
+        for (int type = 0; type < REQUEST_TYPES.length; type++) {
+            Result result = new Result();
+            for (Worker worker : workers) {
+                result.add(worker.latencies[type]);
+                result.errors += worker.errors[type];
+                result.bytes += worker.bytes[type];
+                total.add(worker.latencies[type]);
+                total.errors += worker.errors[type];
+                total.bytes += worker.bytes[type];
+            }
+            results.put(REQUEST_TYPES[type], result);
+        }
+        results.put("total", total);
+        return results;
+    }
+    
+    public long getResyncCount() {
+        long count = 0;
+        for (Worker worker : workers) {
+            count += worker.resyncs;
+        }
+        return count;
+    }
+    
+    /**
+     * Messwerte eines Anfragetyps
+     */
+    public static class Result {
+        private long[] latencies = new long[0];
+        private int count;
+        private long errors;
+        private long bytes;
+        private boolean sorted;
+        
+        void add(LatencyRecorder recorder) {
+            sorted = false;
+            if (count + recorder.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + recorder.size);
+            }
+            System.arraycopy(recorder.values, 0, latencies, count, recorder.size);
+            count += recorder.size;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+        
+        public long getErrors() {
+            return errors;
+        }
+        
+        public double getAverageBytes() {
+            return count > 0 ? (double) bytes / count : 0;
+        }
+        
+        /**
+         * Gibt ein Perzentil der Latenz zurück
+         * 
+         * @param percentile z.B. 0.99
+         * @return Latenz in Millisekunden
+         */
+        public double percentile(double percentile) {
+            if (count == 0) return 0;
+            if (!sorted) {
+                Arrays.sort(latencies, 0, count);
+                sorted = true;
+            }
+            int index = (int) Math.min(count - 1, Math.ceil(percentile * count) - 1);
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+    
+    /**
+     * Wachsende Liste von Latenzen in Nanosekunden (nur vom eigenen Worker beschrieben)
+     */
+    private static class LatencyRecorder {
+        private long[] values = new long[4096];
+        private int size;
+        
+        void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+    }
+    
+    private class Worker {
+        private final Random random;
+        private final LatencyRecorder[] latencies = new LatencyRecorder[REQUEST_TYPES.length];
+        private final long[] errors = new long[REQUEST_TYPES.length];
+        private final long[] bytes = new long[REQUEST_TYPES.length];
+        private long lastBytes;
+        private final byte[] buffer = new byte[8192];
+        private long since = -1;
+        private long epoch = -1;
+        private long resyncs;
+        private Thread thread;
+        
+        Worker(int index) {
+            this.random = new Random(1000 + index);
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyRecorder();
+            }
+        }
+        
+        void run() {
+            while (running.get()) {
+                int type = pickType();
+                String path = pathFor(type);
+                long start = System.nanoTime();
+                lastBytes = 0;
+                int status;
+                String body;
+                try {
+                    HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+                    connection.setRequestProperty("Authorization", "Bearer " + apiKey);
+                    // Die Delta-Synchronisation wertet die Antwort aus und bleibt daher bei JSON
+                    if (type != 3) {
+                        connection.setRequestProperty("Accept", accept);
+                    }
+                    status = connection.getResponseCode();
+                    InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+                    body = readFully(in, type == 3);
+                } catch (IOException e) {
+                    status = -1;
+                    body = null;
+                }
+                long elapsed = System.nanoTime() - start;
+                
+                if (type == 3 && status == 200 && body != null) {
+                    updateSyncState(body);
+                }
+                if (measuring.get()) {
+                    latencies[type].record(elapsed);
+                    bytes[type] += lastBytes;
+                    if (status != 200) {
+                        errors[type]++;
+                    }
+                }
+            }
+        }
+        
+        private int pickType() {
+            int roll = random.nextInt(mixTotal);
+            for (int i = 0; i < mix.length; i++) {
+                roll -= mix[i];
+                if (roll < 0) return i;
+            }
+            return mix.length - 1;
+        }
+        
+        private String pathFor(int type) {
+            switch (type) {
+                case 0: return "/api/status";
+                case 1: return "/api/players";
+                case 2: {
+                    // Bots fragen meist Spieler an, die gerade online sind
+                    String name = random.nextDouble() < hotFraction ? backend.randomOnlineName(random) : null;
+                    if (name == null) {
+                        name = backend.randomKnownName(random);
+                    }
+                    return random.nextInt(4) == 0 ? "/api/players/" + name + "?fields=isOnline,lastSeen" : "/api/players/" + name;
+                }
+                case 3:
+                    return "/api/players/changes?since=" + since + "&epoch=" + epoch + "&fields=isOnline,rank";
+                case 5:
+                    // Umkreissuche um einen zufälligen Punkt der simulierten Welt
+                    return "/api/worlds/world/players?x=" + (random.nextInt(4000) - 2000)
+                            + "&z=" + (random.nextInt(4000) - 2000) + "&radius=256";
+                default: {
+                    // Rollenabgleich: einige Spieler gegen mehrere Knoten prüfen
+                    StringBuilder players = new StringBuilder();
+                    for (int i = 0; i < 5; i++) {
+                        String name = random.nextDouble() < hotFraction ? backend.randomOnlineName(random) : null;
+                        players.append(i > 0 ? "," : "").append(name != null ? name : backend.randomKnownName(random));
+                    }
+                    return "/api/permissions/check?players=" + players + "&nodes=group.vip,group.mod,discord.sync";
+                }
+            }
+        }
+        
+        private void updateSyncState(String body) {
+            JsonObject response = JsonParser.parseString(body).getAsJsonObject();
+            epoch = response.get("epoch").getAsLong();
+            since = response.get("version").getAsLong();
+            if (response.get("fullResync").getAsBoolean()) {
+                resyncs++;
+            }
+        }
+        
+        private String readFully(InputStream in, boolean keep) throws IOException {
+            if (in == null) return null;
+            try (InputStream stream = in) {
+                ByteArrayOutputStream out = keep ? new ByteArrayOutputStream() : null;
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    lastBytes += read;
+                    if (out != null) out.write(buffer, 0, read);
+                }
+                return out != null ? out.toString(StandardCharsets.UTF_8) : "";
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package de.springisfm.discordplayerinfo;
+
+import com.google.gson.Gson;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Lasttest für die REST-API
+ * Startet das echte Plugin (onEnable inkl. API-Server) gegen einen simulierten Server
+ * und misst Durchsatz, Latenzen, Threads und Allokationsrate.
+ * 
+ * Aufruf: mvn -Ploadtest test-compile exec:java -Dloadtest.concurrency=64
+ * Einstellungen des Plugins lassen sich mit -Dloadtest.config.<pfad>=<wert> überschreiben,
+ * z.B. -Dloadtest.config.api.worker-threads=16
+ */
+public class LoadTest {
+    private static final String API_KEY = "loadtest";
+    private static final String CONFIG_PREFIX = "loadtest.config.";
+    
+    public static void main(String[] args) throws Exception {
+        int knownPlayers = intOption("known-players", 5000);
+        int onlinePlayers = intOption("online-players", 100);
+        int maxPlayers = intOption("max-players", 200);
+        long storageLatency = intOption("storage-latency-ms", 5);
+        long lookupLatency = intOption("lookup-latency-ms", 1);
+        double mspt = Double.parseDouble(option("mspt", "10"));
+        int concurrency = intOption("concurrency", 32);
+        int warmupSeconds = intOption("warmup-s", 5);
+        int durationSeconds = intOption("duration-s", 30);
+        int port = intOption("port", 18080);
+        double churnPerSecond = Double.parseDouble(option("churn-per-s", "2"));
+        double rankChangesPerSecond = Double.parseDouble(option("rank-changes-per-s", "0.2"));
+        double movesPerSecond = Double.parseDouble(option("moves-per-s", "100"));
+        double hotFraction = Double.parseDouble(option("hot-fraction", "0.8"));
+        Map<String, Integer> mix = parseMix(option("mix", "status=10,list=35,player=40,batch=10,permissions=5,nearby=5"));
+        ResponseFormat format = ResponseFormat.valueOf(option("format", "json").toUpperCase(Locale.ROOT));
+        
+        // Keep-Alive für alle Worker, sonst misst der Test vor allem Verbindungsaufbau
+        System.setProperty("http.maxConnections", String.valueOf(concurrency));
+        
+        File dataFolder = Files.createTempDirectory("dpi-loadtest").toFile();
+        Map<String, Object> overrides = configOverrides();
+        overrides.put("api.port", port);
+        overrides.put("api.api-key", API_KEY);
+        writeConfig(dataFolder, overrides);
+        
+        FakeBackend backend = new FakeBackend(knownPlayers, maxPlayers, storageLatency, lookupLatency, mspt);
+        backend.populate(onlinePlayers);
+        Bukkit.setServer(backend.getServer());
+        
+        System.out.println("=== DiscordPlayerInfo load test ===");
+        System.out.printf(Locale.ROOT, "players: %d known, %d online | storage latency %d ms, lookup latency %d ms | MSPT %.1f%n",
+                knownPlayers, onlinePlayers, storageLatency, lookupLatency, mspt);
+        System.out.printf(Locale.ROOT, "load: %d bots, warmup %ds, duration %ds, mix %s, format %s, churn %.1f/s, rank changes %.1f/s, moves %.0f/s%n",
+                concurrency, warmupSeconds, durationSeconds, mix, format, churnPerSecond, rankChangesPerSecond, movesPerSecond);
+        System.out.println("config: " + overrides);
+        
+        int baselineThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+        DiscordPlayerInfo plugin = backend.createPlugin(dataFolder);
+        long enableStart = System.nanoTime();
+        plugin.onEnable();
+        long enableNanos = System.nanoTime() - enableStart;
+        while (!plugin.isReady()) {
+            Thread.sleep(5);
+        }
+        System.out.printf("Plugin enabled in %.1f ms, ready after %.1f ms%n",
+                enableNanos / 1_000_000.0, (System.nanoTime() - enableStart) / 1_000_000.0);
+        
+        // Der simulierte Hauptthread erzeugt Joins/Quits, Rangänderungen und Bewegungen
+        if (churnPerSecond > 0) {
+            backend.scheduleOnMainThread(() -> backend.churn(onlinePlayers), (long) (1_000_000 / churnPerSecond));
+        }
+        if (rankChangesPerSecond > 0) {
+            backend.scheduleOnMainThread(backend::changeRandomRank, (long) (1_000_000 / rankChangesPerSecond));
+        }
+        if (movesPerSecond > 0) {
+            backend.scheduleOnMainThread(backend::moveRandomPlayer, (long) (1_000_000 / movesPerSecond));
+        }
+        
+        LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + port, API_KEY, backend, mix, hotFraction, format);
+        ResourceSampler sampler = new ResourceSampler();
+        try {
+            sampler.exclude(generator.start(concurrency));
+            Thread.sleep(TimeUnit.SECONDS.toMillis(warmupSeconds));
+            
+            sampler.start();
+            generator.startMeasuring();
+            long start = System.nanoTime();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(durationSeconds));
+            generator.stop();
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            sampler.stop();
+            
+            report(generator, sampler, plugin, elapsedSeconds, baselineThreads, overrides);
+        } finally {
+            plugin.onDisable();
+            backend.shutdown();
+            deleteRecursively(dataFolder);
+        }
+    }
+    
+    private static void report(LoadGenerator generator, ResourceSampler sampler, DiscordPlayerInfo plugin,
+                               double elapsedSeconds, int baselineThreads, Map<String, Object> overrides) {
+        Map<String, LoadGenerator.Result> results = generator.collect();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-11s %10s %10s %9s %9s %9s %9s %8s %9s%n",
+                "type", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors", "avg bytes");
+        for (Map.Entry<String, LoadGenerator.Result> entry : results.entrySet()) {
+            LoadGenerator.Result result = entry.getValue();
+            double throughput = result.getCount() / elapsedSeconds;
+            System.out.printf(Locale.ROOT, "%-11s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %8d %9.0f%n",
+                    entry.getKey(), result.getCount(), throughput, result.percentile(0.5),
+                    result.percentile(0.99), result.percentile(0.999), result.percentile(1.0), result.getErrors(),
+                    result.getAverageBytes());
+            
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", result.getCount());
+            row.put("rps", round(throughput));
+            row.put("p50", round(result.percentile(0.5)));
+            row.put("p99", round(result.percentile(0.99)));
+            row.put("p999", round(result.percentile(0.999)));
+            row.put("max", round(result.percentile(1.0)));
+            row.put("errors", result.getErrors());
+            row.put("avgBytes", round(result.getAverageBytes()));
+            summary.put(entry.getKey(), row);
+        }
+        
+        long requests = results.get("total").getCount();
+        double allocationRate = sampler.getAllocatedBytes() / elapsedSeconds;
+        System.out.println();
+        System.out.printf(Locale.ROOT, "threads: %d before enable, %d peak, %d at end%n",
+                baselineThreads, sampler.getPeakThreads(), sampler.getEndThreads());
+        System.out.printf(Locale.ROOT, "allocation (server side): %.1f MB/s, %.1f KB/request%n",
+                allocationRate / (1024 * 1024), requests > 0 ? sampler.getAllocatedBytes() / 1024.0 / requests : 0);
+        System.out.printf(Locale.ROOT, "cache: %d in memory, %d on disk | delta sync resyncs: %d%n",
+                plugin.getPlayerDataCache().getCacheSize(), plugin.getPlayerDataCache().getDiskCacheSize(),
+                generator.getResyncCount());
+        System.out.printf(Locale.ROOT, "server load: %s | stale responses: %d | plugin main thread: %.3f ms/tick%n",
+                plugin.getTickMonitor().getLevel(), plugin.getTickMonitor().getStaleResponses(),
+                plugin.getTickMonitor().getPluginMillisPerTick());
+        
+        // Einzeilige Zusammenfassung zum Vergleichen mehrerer Läufe
+        summary.put("threadsPeak", sampler.getPeakThreads());
+        summary.put("allocMBps", round(allocationRate / (1024 * 1024)));
+        summary.put("allocKBperRequest", requests > 0 ? round(sampler.getAllocatedBytes() / 1024.0 / requests) : 0);
+        summary.put("config", overrides);
+        System.out.println("RESULT " + new Gson().toJson(summary));
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+    
+    private static String option(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+    
+    private static int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+    
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            mix.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+    
+    private static Map<String, Object> configOverrides() {
+        Map<String, Object> overrides = new TreeMap<>();
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(CONFIG_PREFIX)) {
+                overrides.put(key.substring(CONFIG_PREFIX.length()), parseValue(System.getProperty(key)));
+            }
+        }
+        return overrides;
+    }
+    
+    private static Object parseValue(String value) {
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ignored) {
+        }
+        return value;
+    }
+    
+    private static void writeConfig(File dataFolder, Map<String, Object> overrides) throws IOException {
+        // Standardkonfiguration des Plugins mit den Überschreibungen des Lasttests
+        try (Reader reader = new InputStreamReader(
+                DiscordPlayerInfo.class.getClassLoader().getResourceAsStream("config.yml"), StandardCharsets.UTF_8)) {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(reader);
+            for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+                config.set(entry.getKey(), entry.getValue());
+            }
+            config.save(new File(dataFolder, "config.yml"));
+        }
+    }
+    
+    private static void deleteRecursively(File folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+    
+    /**
+     * Misst Threadanzahl und die Allokationen aller Threads außer denen des Lastgenerators
+     * und des simulierten Backends
+     */
+    private static class ResourceSampler {
+        private final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final Set<Long> excluded = new HashSet<>();
+        private final Map<Long, Long> lastAllocated = new HashMap<>();
+        private final ScheduledExecutorService executor =
+                Executors.newSingleThreadScheduledExecutor(FakeBackend.daemonThreads("loadtest-sampler-"));
+        private long allocatedBytes;
+        private int peakThreads;
+        private int endThreads;
+        
+        void exclude(long[] threadIds) {
+            for (long id : threadIds) {
+                excluded.add(id);
+            }
+        }
+        
+        void start() {
+            sample(false);
+            executor.scheduleAtFixedRate(() -> sample(true), 100, 100, TimeUnit.MILLISECONDS);
+        }
+        
+        void stop() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+            sample(true);
+            endThreads = threads.getThreadCount();
+        }
+        
+        private synchronized void sample(boolean count) {
+            peakThreads = Math.max(peakThreads, threads.getThreadCount());
+            long[] ids = threads.getAllThreadIds();
+            long[] allocated = threads.getThreadAllocatedBytes(ids);
+            ThreadInfo[] infos = threads.getThreadInfo(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (allocated[i] < 0 || infos[i] == null || excluded.contains(ids[i])
+                        || infos[i].getThreadName().startsWith("loadtest-")) {
+                    continue;
+                }
+                Long previous = lastAllocated.put(ids[i], allocated[i]);
+                if (count) {
+                    allocatedBytes += allocated[i] - (previous != null ? previous : 0);
+                }
+            }
+        }
+        
+        long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+        
+        int getPeakThreads() {
+            return peakThreads;
+        }
+        
+        int getEndThreads() {
+            return endThreads;
+        }
+    }
+}
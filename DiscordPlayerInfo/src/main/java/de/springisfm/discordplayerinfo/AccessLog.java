@@ -0,0 +1,381 @@
+package de.springisfm.discordplayerinfo;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Strukturiertes Access- und Debug-Log
+ * API-Anfragen (Route, Status, Latenz, Cache-Treffer, Client) und Debug-Ereignisse landen
+ * zunächst in einem vorab angelegten, lock-freien Ringpuffer. Ein Hintergrund-Thread leert
+ * ihn blockweise als JSON-Zeilen in eine rotierende Datei. Stichprobe und Level werden
+ * geprüft, bevor etwas allokiert wird; ist der Puffer voll, wird der Eintrag verworfen
+ * statt den Aufrufer zu blockieren.
+ */
+public class AccessLog {
+    public static final byte CACHE_NONE = 0;
+    public static final byte CACHE_HIT = 1;
+    public static final byte CACHE_STALE = 2;
+    public static final byte CACHE_MISS = 3;
+    
+    private static final String[] CACHE_NAMES = {null, "hit", "stale", "miss"};
+    private static final byte ACCESS = 1;
+    private static final byte DEBUG = 2;
+    
+    // Ergebnis der Cache-Abfragen der aktuellen Anfrage (Handler laufen pro Anfrage in einem Thread)
+    private static final ThreadLocal<byte[]> CACHE_RESULT = ThreadLocal.withInitial(() -> new byte[1]);
+    
+    private final DiscordPlayerInfo plugin;
+    private final File directory;
+    private final boolean accessEnabled;
+    private final boolean debugEnabled;
+    private final double sampleRate;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final long flushIntervalMillis;
+    
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long consumed;
+    
+    // Nur im Schreiber-Thread verwendet
+    private final StringBuilder line = new StringBuilder(256);
+    private ScheduledExecutorService writer;
+    private Writer output;
+    private long fileSize;
+    private volatile long written;
+    
+    public AccessLog(DiscordPlayerInfo plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "logs");
+        this.accessEnabled = plugin.getConfig().getBoolean("access-log.enabled", true);
+        this.debugEnabled = plugin.getConfig().getBoolean("debug.enabled", false);
+        this.sampleRate = plugin.getConfig().getDouble("access-log.sample-rate", 1.0);
+        this.maxFileSize = plugin.getConfig().getLong("access-log.max-file-size-mb", 10) * 1024 * 1024;
+        this.maxFiles = Math.max(1, plugin.getConfig().getInt("access-log.max-files", 5));
+        this.flushIntervalMillis = Math.max(10, plugin.getConfig().getLong("access-log.flush-interval-ms", 500));
+        
+        // Kapazität auf die nächste Zweierpotenz runden, damit der Index per Maske berechnet werden kann
+        int capacity = Integer.highestOneBit(Math.max(64, plugin.getConfig().getInt("access-log.buffer-size", 8192)) - 1) << 1;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+    }
+    
+    /**
+     * Startet den Hintergrund-Schreiber, sofern Access- oder Debug-Log aktiv sind
+     */
+    public void start() {
+        if (!accessEnabled && !debugEnabled) return;
+        
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DiscordPlayerInfo-AccessLog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::drain, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Beendet den Schreiber, schreibt verbliebene Einträge und schließt die Datei
+     */
+    public void shutdown() {
+        if (writer == null) return;
+        
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+        closeFile();
+    }
+    
+    /**
+     * Gibt an, ob Debug-Ereignisse protokolliert werden. Aufrufer prüfen dies, bevor sie
+     * Argumente für debug() ermitteln.
+     * 
+     * @return true, wenn debug.enabled gesetzt ist
+     */
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+    
+    /**
+     * Protokolliert ein Debug-Ereignis. Es wird nichts zusammengesetzt; die Zeile entsteht
+     * erst im Schreiber-Thread.
+     * 
+     * @param event Art des Ereignisses (konstanter Text, z.B. "player-join")
+     * @param subject Betroffener Spieler oder Schlüssel
+     */
+    public void debug(String event, String subject) {
+        if (!debugEnabled) return;
+        
+        Slot slot = claim();
+        if (slot == null) return;
+        slot.type = DEBUG;
+        slot.event = event;
+        slot.subject = subject;
+        slot.publish();
+    }
+    
+    /**
+     * Setzt das Cache-Ergebnis der aktuellen Anfrage zurück
+     */
+    static void resetCacheResult() {
+        CACHE_RESULT.get()[0] = CACHE_NONE;
+    }
+    
+    /**
+     * Vermerkt das Ergebnis einer Cache-Abfrage für die aktuelle Anfrage. Bei mehreren
+     * Abfragen (z.B. Delta-Synchronisation) zählt das schlechteste Ergebnis.
+     * 
+     * @param result CACHE_HIT, CACHE_STALE oder CACHE_MISS
+     */
+    public static void markCacheResult(byte result) {
+        byte[] current = CACHE_RESULT.get();
+        if (result > current[0]) {
+            current[0] = result;
+        }
+    }
+    
+    /**
+     * Gibt den Filter zurück, der Anfragen an einen HttpContext protokolliert
+     * 
+     * @return Filter für HttpContext.getFilters()
+     */
+    public Filter filter() {
+        return new RequestFilter();
+    }
+    
+    public long getWrittenCount() {
+        return written;
+    }
+    
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    /**
+     * Reserviert den nächsten freien Platz im Ringpuffer
+     * 
+     * @return Slot oder null, wenn der Puffer voll ist
+     */
+    private Slot claim() {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.incrementAndGet();
+                return null;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.sequence = sequence;
+        slot.timestamp = System.currentTimeMillis();
+        return slot;
+    }
+    
+    private void record(HttpExchange exchange, long startNanos) {
+        Slot slot = claim();
+        if (slot == null) return;
+        slot.type = ACCESS;
+        slot.method = exchange.getRequestMethod();
+        slot.uri = exchange.getRequestURI();
+        slot.status = exchange.getResponseCode();
+        slot.latencyNanos = System.nanoTime() - startNanos;
+        slot.cache = CACHE_RESULT.get()[0];
+        slot.client = exchange.getRemoteAddress();
+        slot.publish();
+    }
+    
+    /**
+     * Schreibt alle veröffentlichten Einträge in die Datei (nur im Schreiber-Thread)
+     */
+    private synchronized void drain() {
+        long next = consumed;
+        int batch = 0;
+        try {
+            while (true) {
+                Slot slot = slots[(int) (next & mask)];
+                if (slot.published != next) break;
+                
+                format(slot);
+                slot.clear();
+                consumed = ++next;
+                
+                if (output == null || fileSize >= maxFileSize) {
+                    rotate();
+                }
+                output.write(line.toString());
+                fileSize += line.length();
+                batch++;
+            }
+            if (batch > 0) {
+                output.flush();
+                written += batch;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write access log", e);
+            closeFile();
+        }
+    }
+    
+    private void format(Slot slot) {
+        line.setLength(0);
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(slot.timestamp)).append('"');
+        if (slot.type == ACCESS) {
+            line.append(",\"type\":\"access\",\"method\":\"").append(slot.method).append("\",\"route\":");
+            appendString(slot.uri.getRawPath());
+            line.append(",\"status\":").append(slot.status);
+            line.append(",\"latencyMs\":").append(slot.latencyNanos / 1000 / 1000.0);
+            if (slot.cache != CACHE_NONE) {
+                line.append(",\"cache\":\"").append(CACHE_NAMES[slot.cache]).append('"');
+            }
+            if (slot.client != null && slot.client.getAddress() != null) {
+                line.append(",\"client\":\"").append(slot.client.getAddress().getHostAddress()).append('"');
+            }
+        } else {
+            line.append(",\"type\":\"debug\",\"event\":\"").append(slot.event).append("\",\"subject\":");
+            appendString(slot.subject);
+        }
+        line.append("}\n");
+    }
+    
+    private void appendString(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+    
+    /**
+     * Öffnet die Log-Datei bzw. verschiebt sie bei Erreichen der Maximalgröße
+     * (access.log -> access.1.log -> ... -> access.{max-files - 1}.log)
+     */
+    private void rotate() throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        
+        File current = new File(directory, "access.log");
+        if (output != null) {
+            closeFile();
+            new File(directory, "access." + (maxFiles - 1) + ".log").delete();
+            for (int i = maxFiles - 2; i >= 1; i--) {
+                new File(directory, "access." + i + ".log").renameTo(new File(directory, "access." + (i + 1) + ".log"));
+            }
+            if (maxFiles > 1) {
+                current.renameTo(new File(directory, "access.1.log"));
+            } else {
+                current.delete();
+            }
+        }
+        
+        output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(current, true), StandardCharsets.UTF_8), 65536);
+        fileSize = current.length();
+    }
+    
+    private void closeFile() {
+        if (output == null) return;
+        
+        try {
+            output.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close access log", e);
+        }
+        output = null;
+    }
+    
+    /**
+     * Platz im Ringpuffer; wird wiederverwendet, damit der Aufrufer nichts allokieren muss
+     */
+    private static class Slot {
+        private volatile long published = -1;
+        private long sequence;
+        private long timestamp;
+        private byte type;
+        private String method;
+        private URI uri;
+        private int status;
+        private long latencyNanos;
+        private byte cache;
+        private InetSocketAddress client;
+        private String event;
+        private String subject;
+        
+        void publish() {
+            published = sequence;
+        }
+        
+        void clear() {
+            method = null;
+            uri = null;
+            client = null;
+            event = null;
+            subject = null;
+        }
+    }
+    
+    /**
+     * Misst Anfragen an einen HttpContext und schreibt sie (gemäß Stichprobe) ins Access-Log
+     */
+    private class RequestFilter extends Filter {
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            // Stichprobe vor jeder Allokation ziehen
+            if (!accessEnabled || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+                chain.doFilter(exchange);
+                return;
+            }
+            
+            long start = System.nanoTime();
+            resetCacheResult();
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                record(exchange, start);
+            }
+        }
+        
+        @Override
+        public String description() {
+            return "DiscordPlayerInfo access log";
+        }
+    }
+}
@@ -0,0 +1,536 @@
+package de.springisfm.discordplayerinfo;
+
+import org.bukkit.entity.Player;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Append-Only-Protokoll für Join-, Quit- und AFK-Wechsel
+ * Ereignisse werden gepuffert und von einem Hintergrund-Thread blockweise in
+ * rotierende Segmentdateien geschrieben. Parallel dazu werden pro Spieler
+ * rollierende Aggregate (aktive Zeit pro Tag/Woche, Stunden-Heatmap) inkrementell
+ * gepflegt, sodass Abfragen das Protokoll nie erneut lesen müssen.
+ * Das Protokoll nimmt Ereignisse ab start() an. Bis initialize() das vorhandene Protokoll
+ * eingespielt hat, werden sie zurückgehalten und danach in ihrer Reihenfolge angewendet.
+ */
+public class ActivityLog {
+    public static final byte JOIN = 1;
+    public static final byte QUIT = 2;
+    public static final byte AFK_START = 3;
+    public static final byte AFK_END = 4;
+    public static final byte SERVER_START = 5;
+    public static final byte SERVER_STOP = 6;
+    
+    private static final UUID SERVER_UUID = new UUID(0, 0);
+    private static final int RECORD_SIZE = 1 + 8 + 16;
+    private static final int WINDOW_DAYS = 28;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+    
+    private final DiscordPlayerInfo plugin;
+    private final File directory;
+    private final ZoneId zone;
+    private final long segmentSize;
+    private final long retentionMillis;
+    private final long flushIntervalMillis;
+    private final Map<UUID, PlayerActivity> activities;
+    private final Map<String, UUID> nameIndex;
+    private final Queue<Event> pending;
+    private ScheduledExecutorService writer;
+    private DataOutputStream output;
+    private File currentSegment;
+    private long currentSegmentSize;
+    private volatile long lastTimestamp;
+    private volatile boolean loaded;
+    private final Object startupLock = new Object();
+    // Ereignisse, die vor dem Einspielen des Protokolls eintreffen (null, sobald es geladen ist)
+    private List<Event> startupEvents = new ArrayList<>();
+    
+    public ActivityLog(DiscordPlayerInfo plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "activity");
+        this.zone = ZoneId.of(plugin.getConfig().getString("player-data.default-timezone", "Europe/Berlin"));
+        this.segmentSize = plugin.getConfig().getLong("activity.segment-size-kb", 1024) * 1024;
+        this.retentionMillis = TimeUnit.DAYS.toMillis(Math.max(WINDOW_DAYS, plugin.getConfig().getInt("activity.retention-days", 35)));
+        this.flushIntervalMillis = plugin.getConfig().getLong("activity.flush-interval-ms", 1000);
+        this.activities = new ConcurrentHashMap<>();
+        this.nameIndex = new ConcurrentHashMap<>();
+        this.pending = new ConcurrentLinkedQueue<>();
+    }
+    
+    /**
+     * Protokolliert den Serverstart und die bereits verbundenen Spieler (im Haupt-Thread,
+     * bevor die Event-Listener registriert werden)
+     * 
+     * @param onlinePlayers Beim Aktivieren bereits verbundene Spieler (z.B. nach einem Reload)
+     */
+    public void start(Collection<? extends Player> onlinePlayers) {
+        record(SERVER_START, SERVER_UUID, System.currentTimeMillis());
+        for (Player player : onlinePlayers) {
+            recordJoin(player.getUniqueId(), player.getName());
+        }
+    }
+    
+    /**
+     * Entfernt abgelaufene Segmente, spielt das vorhandene Protokoll ein, um die
+     * Aggregate wiederherzustellen, wendet die seit start() eingetroffenen Ereignisse an
+     * und startet den Hintergrund-Schreiber. Läuft außerhalb des Haupt-Threads.
+     */
+    public void initialize() {
+        deleteExpiredSegments();
+        int replayed = replay();
+        
+        int buffered;
+        synchronized (startupLock) {
+            buffered = startupEvents.size();
+            for (Event event : startupEvents) {
+                apply(event.type, event.playerUUID, event.timestamp);
+            }
+            startupEvents = null;
+            loaded = true;
+        }
+        
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DiscordPlayerInfo-ActivityLog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        
+        plugin.getLogger().info("ActivityLog initialized, replayed " + replayed + " events for " + activities.size()
+                + " players, applied " + buffered + " events from startup");
+    }
+    
+    /**
+     * Gibt an, ob das vorhandene Protokoll eingespielt ist und Abfragen beantwortet werden können
+     * 
+     * @return true nach Abschluss von initialize()
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    /**
+     * Schließt alle offenen Sitzungen, schreibt ausstehende Ereignisse und beendet den Schreiber
+     */
+    public void shutdown() {
+        record(SERVER_STOP, SERVER_UUID, System.currentTimeMillis());
+        
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        closeSegment();
+    }
+    
+    /**
+     * Protokolliert, dass ein Spieler den Server betreten hat
+     * 
+     * @param playerUUID UUID des Spielers
+     * @param name Aktueller Name des Spielers
+     */
+    public void recordJoin(UUID playerUUID, String name) {
+        nameIndex.put(name.toLowerCase(), playerUUID);
+        record(JOIN, playerUUID, System.currentTimeMillis());
+    }
+    
+    /**
+     * Protokolliert, dass ein Spieler den Server verlassen hat
+     * 
+     * @param playerUUID UUID des Spielers
+     */
+    public void recordQuit(UUID playerUUID) {
+        record(QUIT, playerUUID, System.currentTimeMillis());
+    }
+    
+    /**
+     * Protokolliert einen Wechsel des AFK-Status
+     * 
+     * @param playerUUID UUID des Spielers
+     * @param afk true, wenn der Spieler nun AFK ist
+     */
+    public void recordAfk(UUID playerUUID, boolean afk) {
+        record(afk ? AFK_START : AFK_END, playerUUID, System.currentTimeMillis());
+    }
+    
+    /**
+     * Sucht die UUID eines Spielers anhand seines zuletzt bekannten Namens
+     * 
+     * @param name Spielername
+     * @return UUID oder null, wenn seit dem Start kein Join dieses Namens protokolliert wurde
+     */
+    public UUID findPlayer(String name) {
+        return nameIndex.get(name.toLowerCase());
+    }
+    
+    /**
+     * Gibt die Aktivitäts-Aggregate eines Spielers zurück. Eine laufende Sitzung wird
+     * bis zum aktuellen Zeitpunkt eingerechnet, ohne die gespeicherten Werte zu verändern.
+     * 
+     * @param playerUUID UUID des Spielers
+     * @return Antwort-Map oder null, wenn keine Aktivität bekannt ist
+     */
+    public Map<String, Object> getActivity(UUID playerUUID) {
+        PlayerActivity activity = activities.get(playerUUID);
+        if (activity == null) return null;
+        
+        long now = System.currentTimeMillis();
+        PlayerActivity view;
+        synchronized (activity) {
+            view = activity.copy();
+        }
+        if (view.activeSince >= 0) {
+            addActiveTime(view, view.activeSince, now);
+        }
+        return view.toResponse(playerUUID, toEpochDay(now));
+    }
+    
+    /**
+     * Gibt die Anzahl der Spieler mit Aktivitätsdaten zurück
+     * 
+     * @return Anzahl der Spieler
+     */
+    public int getTrackedPlayerCount() {
+        return activities.size();
+    }
+    
+    /**
+     * Übernimmt ein Ereignis in die Aggregate und reiht es zum Schreiben ein
+     */
+    private void record(byte type, UUID playerUUID, long timestamp) {
+        Event event = new Event(type, playerUUID, timestamp);
+        if (!loaded) {
+            synchronized (startupLock) {
+                if (startupEvents != null) {
+                    // Wird erst nach dem Einspielen angewendet, aber schon zum Schreiben vorgemerkt
+                    startupEvents.add(event);
+                    pending.add(event);
+                    return;
+                }
+            }
+        }
+        apply(type, playerUUID, timestamp);
+        pending.add(event);
+    }
+    
+    /**
+     * Aktualisiert die Aggregate anhand eines Ereignisses
+     */
+    private void apply(byte type, UUID playerUUID, long timestamp) {
+        long previousTimestamp = lastTimestamp;
+        lastTimestamp = timestamp;
+        
+        if (type == SERVER_START || type == SERVER_STOP) {
+            // Offene Sitzungen schließen. Fehlt vor einem Start das Stop-Ereignis (Absturz),
+            // endet die Sitzung mit dem letzten protokollierten Ereignis.
+            long end = type == SERVER_STOP ? timestamp : previousTimestamp;
+            for (PlayerActivity activity : activities.values()) {
+                synchronized (activity) {
+                    closeSession(activity, end);
+                }
+            }
+            return;
+        }
+        
+        PlayerActivity activity = activities.computeIfAbsent(playerUUID, uuid -> new PlayerActivity());
+        synchronized (activity) {
+            switch (type) {
+                case JOIN:
+                    if (activity.online) {
+                        closeSession(activity, timestamp);
+                    }
+                    activity.online = true;
+                    activity.afk = false;
+                    activity.lastJoin = timestamp;
+                    activity.activeSince = timestamp;
+                    break;
+                case QUIT:
+                    closeSession(activity, timestamp);
+                    activity.lastQuit = timestamp;
+                    break;
+                case AFK_START:
+                    if (activity.activeSince >= 0) {
+                        addActiveTime(activity, activity.activeSince, timestamp);
+                        activity.activeSince = -1;
+                    }
+                    activity.afk = true;
+                    break;
+                case AFK_END:
+                    if (activity.online && activity.activeSince < 0) {
+                        activity.activeSince = timestamp;
+                    }
+                    activity.afk = false;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    private void closeSession(PlayerActivity activity, long end) {
+        if (activity.activeSince >= 0 && end > activity.activeSince) {
+            addActiveTime(activity, activity.activeSince, end);
+        }
+        activity.activeSince = -1;
+        activity.online = false;
+        activity.afk = false;
+    }
+    
+    /**
+     * Verteilt einen aktiven Zeitraum auf die Tages- und Stunden-Buckets
+     */
+    private void addActiveTime(PlayerActivity activity, long start, long end) {
+        long cursor = Math.max(start, end - retentionMillis);
+        while (cursor < end) {
+            long localMillis = cursor + zone.getRules().getOffset(Instant.ofEpochMilli(cursor)).getTotalSeconds() * 1000L;
+            long epochDay = Math.floorDiv(localMillis, DAY_MILLIS);
+            int hour = (int) (Math.floorMod(localMillis, DAY_MILLIS) / HOUR_MILLIS);
+            long next = Math.min(end, cursor + HOUR_MILLIS - Math.floorMod(localMillis, HOUR_MILLIS));
+            activity.add(epochDay, hour, (int) ((next - cursor) / 1000));
+            cursor = next;
+        }
+    }
+    
+    private long toEpochDay(long timestamp) {
+        long localMillis = timestamp + zone.getRules().getOffset(Instant.ofEpochMilli(timestamp)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(localMillis, DAY_MILLIS);
+    }
+    
+    /**
+     * Schreibt alle ausstehenden Ereignisse in einem Block in das aktuelle Segment
+     */
+    private synchronized void flush() {
+        if (pending.isEmpty()) return;
+        
+        try {
+            Event event;
+            while ((event = pending.poll()) != null) {
+                if (output == null || currentSegmentSize >= segmentSize) {
+                    rotateSegment();
+                }
+                output.writeByte(event.type);
+                output.writeLong(event.timestamp);
+                output.writeLong(event.playerUUID.getMostSignificantBits());
+                output.writeLong(event.playerUUID.getLeastSignificantBits());
+                currentSegmentSize += RECORD_SIZE;
+            }
+            output.flush();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write activity log", e);
+            closeSegment();
+        }
+    }
+    
+    private void rotateSegment() throws IOException {
+        closeSegment();
+        deleteExpiredSegments();
+        
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        currentSegment = new File(directory, "segment-" + System.currentTimeMillis() + ".log");
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(currentSegment, true)));
+        currentSegmentSize = currentSegment.length();
+    }
+    
+    private void closeSegment() {
+        if (output == null) return;
+        
+        try {
+            output.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close activity log segment", e);
+        }
+        output = null;
+        currentSegment = null;
+    }
+    
+    /**
+     * Liest alle Segmente in zeitlicher Reihenfolge und baut daraus die Aggregate auf
+     */
+    private int replay() {
+        int count = 0;
+        for (File segment : listSegments()) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+                while (true) {
+                    byte type = input.readByte();
+                    long timestamp = input.readLong();
+                    UUID playerUUID = new UUID(input.readLong(), input.readLong());
+                    apply(type, playerUUID, timestamp);
+                    count++;
+                }
+            } catch (EOFException e) {
+                // Ende des Segments erreicht
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to read activity log segment " + segment.getName(), e);
+            }
+        }
+        return count;
+    }
+    
+    private void deleteExpiredSegments() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (File segment : listSegments()) {
+            if (!segment.equals(currentSegment) && segment.lastModified() < cutoff && !segment.delete()) {
+                plugin.getLogger().warning("Failed to delete expired activity log segment " + segment.getName());
+            }
+        }
+    }
+    
+    private List<File> listSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("segment-") && name.endsWith(".log"));
+        if (files == null) return new ArrayList<>();
+        
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort((a, b) -> Long.compare(segmentStart(a), segmentStart(b)));
+        return segments;
+    }
+    
+    private static long segmentStart(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Ein ausstehendes Ereignis
+     */
+    private static class Event {
+        final byte type;
+        final UUID playerUUID;
+        final long timestamp;
+        
+        Event(byte type, UUID playerUUID, long timestamp) {
+            this.type = type;
+            this.playerUUID = playerUUID;
+            this.timestamp = timestamp;
+        }
+    }
+    
+    /**
+     * Rollierende Aktivitätsdaten eines Spielers
+     * Tages- und Stundenwerte liegen in Ringpuffern über {@value #WINDOW_DAYS} Tage;
+     * Auswertungen berücksichtigen nur Plätze, deren Tag im aktuellen Fenster liegt.
+     */
+    private static class PlayerActivity {
+        boolean online;
+        boolean afk;
+        long activeSince = -1;
+        long lastJoin;
+        long lastQuit;
+        long[] dayTags = new long[WINDOW_DAYS];
+        int[] daySeconds = new int[WINDOW_DAYS];
+        short[] hourSeconds = new short[WINDOW_DAYS * 24];
+        
+        PlayerActivity() {
+            Arrays.fill(dayTags, Long.MIN_VALUE);
+        }
+        
+        void add(long epochDay, int hour, int seconds) {
+            int slot = (int) Math.floorMod(epochDay, (long) WINDOW_DAYS);
+            if (dayTags[slot] != epochDay) {
+                if (dayTags[slot] > epochDay) return; // älter als das Fenster
+                
+                // Tag wiederverwenden: alte Stundenwerte verwerfen
+                Arrays.fill(hourSeconds, slot * 24, slot * 24 + 24, (short) 0);
+                dayTags[slot] = epochDay;
+                daySeconds[slot] = 0;
+            }
+            daySeconds[slot] += seconds;
+            hourSeconds[slot * 24 + hour] += seconds;
+        }
+        
+        int secondsForDay(long epochDay) {
+            int slot = (int) Math.floorMod(epochDay, (long) WINDOW_DAYS);
+            return dayTags[slot] == epochDay ? daySeconds[slot] : 0;
+        }
+        
+        PlayerActivity copy() {
+            PlayerActivity copy = new PlayerActivity();
+            copy.online = online;
+            copy.afk = afk;
+            copy.activeSince = activeSince;
+            copy.lastJoin = lastJoin;
+            copy.lastQuit = lastQuit;
+            copy.dayTags = dayTags.clone();
+            copy.daySeconds = daySeconds.clone();
+            copy.hourSeconds = hourSeconds.clone();
+            return copy;
+        }
+        
+        Map<String, Object> toResponse(UUID playerUUID, long today) {
+            Map<String, Object> daily = new LinkedHashMap<>();
+            long weekSeconds = 0;
+            long windowSeconds = 0;
+            for (long day = today - WINDOW_DAYS + 1; day <= today; day++) {
+                int seconds = secondsForDay(day);
+                windowSeconds += seconds;
+                if (day > today - 7) {
+                    weekSeconds += seconds;
+                    daily.put(LocalDate.ofEpochDay(day).toString(), seconds / 60);
+                }
+            }
+            
+            // Heatmap nur aus Tagen innerhalb des Fensters, auch wenn ihre Plätze noch nicht überschrieben wurden
+            int[] heatmapSeconds = new int[24];
+            for (int slot = 0; slot < WINDOW_DAYS; slot++) {
+                if (dayTags[slot] <= today - WINDOW_DAYS || dayTags[slot] > today) continue;
+                for (int h = 0; h < 24; h++) {
+                    heatmapSeconds[h] += hourSeconds[slot * 24 + h];
+                }
+            }
+            int[] heatmap = new int[24];
+            for (int h = 0; h < 24; h++) {
+                heatmap[h] = heatmapSeconds[h] / 60;
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("uuid", playerUUID.toString());
+            response.put("online", online);
+            response.put("afk", afk);
+            response.put("currentSessionStart", online ? lastJoin : null);
+            response.put("lastJoin", lastJoin);
+            response.put("lastQuit", lastQuit);
+            response.put("activeMinutesToday", secondsForDay(today) / 60);
+            response.put("activeMinutesWeek", weekSeconds / 60);
+            response.put("activeMinutes28d", windowSeconds / 60);
+            response.put("dailyMinutes", daily);
+            response.put("hourlyHeatmap", heatmap);
+            return response;
+        }
+    }
+}
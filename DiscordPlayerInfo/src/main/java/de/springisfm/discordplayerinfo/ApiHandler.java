@@ -2,16 +2,29 @@ package de.springisfm.discordplayerinfo;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.bukkit.Bukkit;
+import net.luckperms.api.model.user.User;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -30,6 +43,123 @@ public class ApiHandler {
         return REQUEST_COUNT.get();
     }
     
+    /**
+     * Liest einen Query-Parameter aus der Anfrage
+     * 
+     * @param exchange HttpExchange-Objekt
+     * @param name Name des Parameters
+     * @return Dekodierter Wert oder null, wenn nicht vorhanden
+     */
+    static String getQueryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return null;
+        
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String key = separator >= 0 ? pair.substring(0, separator) : pair;
+            if (key.equals(name)) {
+                return separator >= 0 ? URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8) : "";
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Sendet eine Antwort im vom Client gewünschten Format zurück (JSON, CBOR oder MessagePack)
+     * 
+     * @param exchange HttpExchange-Objekt
+     * @param statusCode HTTP-Statuscode
+     * @param responseObject Antwortobjekt (wird im ausgehandelten Format kodiert)
+     * @throws IOException wenn ein Fehler beim Senden auftritt
+     */
+    static void sendResponse(HttpExchange exchange, int statusCode, Object responseObject) throws IOException {
+        ResponseFormat format = negotiateFormat(exchange);
+        sendEncoded(exchange, statusCode, format, format.encode(responseObject));
+    }
+    
+    /**
+     * Sendet bereits kodierte Bytes zurück
+     * 
+     * @param exchange HttpExchange-Objekt
+     * @param statusCode HTTP-Statuscode
+     * @param format Format, in dem die Bytes kodiert sind
+     * @param responseBytes Kodierte Antwort
+     * @throws IOException wenn ein Fehler beim Senden auftritt
+     */
+    static void sendEncoded(HttpExchange exchange, int statusCode, ResponseFormat format, byte[] responseBytes) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", format.getContentType());
+        headers.set("Vary", "Accept");
+        exchange.sendResponseHeaders(statusCode, responseBytes.length);
+        
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+    
+    /**
+     * Zählt die Anfrage, setzt die CORS-Header, beantwortet Preflight-Anfragen (OPTIONS)
+     * und prüft den API-Schlüssel
+     * 
+     * @param plugin Plugin-Instanz
+     * @param exchange HttpExchange-Objekt
+     * @param allowedMethods Erlaubte Methoden für Access-Control-Allow-Methods
+     * @return true, wenn die Anfrage weiter bearbeitet werden soll; false, wenn bereits geantwortet wurde
+     * @throws IOException wenn ein Fehler beim Senden auftritt
+     */
+    static boolean handlePreflightAndAuth(DiscordPlayerInfo plugin, HttpExchange exchange, String allowedMethods) throws IOException {
+        REQUEST_COUNT.incrementAndGet();
+        
+        // CORS-Header hinzufügen, falls aktiviert
+        if (plugin.getPluginConfig().getBoolean("api.allow-cors", true)) {
+            Headers headers = exchange.getResponseHeaders();
+            headers.add("Access-Control-Allow-Origin", 
+                plugin.getPluginConfig().getString("api.allowed-origins", "*"));
+            headers.add("Access-Control-Allow-Methods", allowedMethods);
+            headers.add("Access-Control-Allow-Headers", "Content-Type, Authorization");
+            
+            if (exchange.getRequestMethod().equalsIgnoreCase("OPTIONS")) {
+                exchange.sendResponseHeaders(204, -1);
+                return false;
+            }
+        }
+        
+        // Prüfen der API-Authentifizierung
+        String apiKey = plugin.getPluginConfig().getString("api.api-key", "");
+        if (!apiKey.isEmpty()) {
+            String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authHeader == null || !authHeader.equals("Bearer " + apiKey)) {
+                sendResponse(exchange, 401, errorResponse("Unauthorized", "Invalid API key"));
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Erstellt eine standardisierte Fehlerantwort
+     * 
+     * @param error Fehlertyp
+     * @param message Fehlermeldung
+     * @return Map mit Fehlerinformationen
+     */
+    static Map<String, Object> errorResponse(String error, String message) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", error);
+        errorResponse.put("message", message);
+        return errorResponse;
+    }
+    
+    /**
+     * Ermittelt das Antwortformat aus dem Accept-Header der Anfrage
+     * 
+     * @param exchange HttpExchange-Objekt
+     * @return Ausgehandeltes Format (Standard: JSON)
+     */
+    static ResponseFormat negotiateFormat(HttpExchange exchange) {
+        return ResponseFormat.negotiate(exchange.getRequestHeaders().getFirst("Accept"));
+    }
+    
     /**
      * Handler für /api/players Endpunkt
      */
@@ -42,38 +172,7 @@ public class ApiHandler {
         
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            REQUEST_COUNT.incrementAndGet();
-            
-            // CORS-Header hinzufügen, falls aktiviert
-            if (plugin.getPluginConfig().getBoolean("api.allow-cors", true)) {
-                Headers headers = exchange.getResponseHeaders();
-                headers.add("Access-Control-Allow-Origin", 
-                    plugin.getPluginConfig().getString("api.allowed-origins", "*"));
-                headers.add("Access-Control-Allow-Methods", "GET, OPTIONS");
-                headers.add("Access-Control-Allow-Headers", "Content-Type, Authorization");
-                
-                if (exchange.getRequestMethod().equalsIgnoreCase("OPTIONS")) {
-                    exchange.sendResponseHeaders(204, -1);
-                    return;
-                }
-            }
-            
-            // Prüfen der API-Authentifizierung
-            String apiKey = plugin.getPluginConfig().getString("api.api-key", "");
-            if (!apiKey.isEmpty()) {
-                Headers headers = exchange.getRequestHeaders();
-                String authHeader = headers.getFirst("Authorization");
-                
-                if (authHeader == null || !authHeader.equals("Bearer " + apiKey)) {
-                    sendResponse(exchange, 401, createErrorResponse("Unauthorized", "Invalid API key"));
-                    return;
-                }
-            }
-            
-            // Log API-Anfragen im Debug-Modus
-            if (plugin.getPluginConfig().getBoolean("debug.log-api-requests", false)) {
-                plugin.getLogger().info("API request received: " + exchange.getRequestURI().toString());
-            }
+            if (!handlePreflightAndAuth(plugin, exchange, "GET, OPTIONS")) return;
             
             String path = exchange.getRequestURI().getPath();
             String[] pathParts = path.split("/");
@@ -81,38 +180,55 @@ public class ApiHandler {
             // /api/players - Liste aller Spieler abrufen
             if (pathParts.length == 3) {
                 if (!exchange.getRequestMethod().equals("GET")) {
-                    sendResponse(exchange, 405, createErrorResponse("Method Not Allowed", "Only GET method is allowed"));
+                    sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET method is allowed"));
                     return;
                 }
                 
-                Map<String, Object> response = new HashMap<>();
-                response.put("online", Bukkit.getOnlinePlayers().size());
-                response.put("max", Bukkit.getMaxPlayers());
+                OnlineRoster roster = plugin.getOnlineRoster();
+                OnlineRoster.Snapshot snapshot = roster.getSnapshot();
                 
-                // Spielerliste nur hinzufügen, wenn es Online-Spieler gibt
-                if (!Bukkit.getOnlinePlayers().isEmpty()) {
-                    Map<String, String> players = new HashMap<>();
-                    Bukkit.getOnlinePlayers().forEach(player -> 
-                        players.put(player.getUniqueId().toString(), player.getName()));
-                    response.put("players", players);
+                // Unter Last kann der Snapshot Joins/Quits verpassen, dann als veraltet kennzeichnen.
+                // Das Alter steht im Header, damit auch dann die vorserialisierte Liste gesendet werden kann.
+                boolean stale = roster.hasPendingChanges();
+                if (stale) {
+                    exchange.getResponseHeaders().set("X-Roster-Age-Ms",
+                            Long.toString(Math.max(0, System.currentTimeMillis() - snapshot.getPublishedAt())));
                 }
                 
-                sendResponse(exchange, 200, response);
+                // Vorserialisierte Liste aus dem aktuellen Snapshot senden
+                ResponseFormat format = negotiateFormat(exchange);
+                sendEncoded(exchange, 200, format, snapshot.getEncoded(format, stale));
                 return;
             }
             
             // /api/players/{username} - Informationen über einen bestimmten Spieler abrufen
             if (pathParts.length == 4) {
                 if (!exchange.getRequestMethod().equals("GET")) {
-                    sendResponse(exchange, 405, createErrorResponse("Method Not Allowed", "Only GET method is allowed"));
+                    sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET method is allowed"));
+                    return;
+                }
+                
+                // Spielerdaten erst nach dem vollständigen Start ermitteln (sonst fehlen z.B. Zeitzonen im Cache)
+                if (!plugin.isReady()) {
+                    exchange.getResponseHeaders().add("Retry-After", "1");
+                    sendResponse(exchange, 503, errorResponse("Service Unavailable", "Plugin is starting"));
+                    return;
+                }
+                
+                // Optional nur bestimmte Felder ermitteln (?fields=isOnline,rank)
+                Set<String> fields;
+                try {
+                    fields = PlayerFieldResolver.parseFields(getQueryParameter(exchange, "fields"));
+                } catch (IllegalArgumentException e) {
+                    sendResponse(exchange, 400, errorResponse("Bad Request", e.getMessage()));
                     return;
                 }
                 
                 String username = pathParts[3];
-                Map<String, Object> playerData = plugin.getPlayerData(username);
+                Map<String, Object> playerData = plugin.getPlayerData(username, fields);
                 
                 if (playerData == null) {
-                    sendResponse(exchange, 404, createErrorResponse("Not Found", "Player not found"));
+                    sendResponse(exchange, 404, errorResponse("Not Found", "Player not found"));
                     return;
                 }
                 
@@ -121,140 +237,586 @@ public class ApiHandler {
             }
             
             // Ungültige API-Route
-            sendResponse(exchange, 404, createErrorResponse("Not Found", "Invalid API endpoint"));
+            sendResponse(exchange, 404, errorResponse("Not Found", "Invalid API endpoint"));
         }
+    }
+    
+    /**
+     * Handler für /api/status Endpunkt
+     * Implementiert einen Health-Check für den Discord-Bot
+     */
+    public static class StatusHandler implements HttpHandler {
+        private final DiscordPlayerInfo plugin;
         
-        /**
-         * Sendet eine JSON-Antwort zurück
-         * 
-         * @param exchange HttpExchange-Objekt
-         * @param statusCode HTTP-Statuscode
-         * @param responseObject Antwortobjekt (wird zu JSON konvertiert)
-         * @throws IOException wenn ein Fehler beim Senden auftritt
-         */
-        private void sendResponse(HttpExchange exchange, int statusCode, Object responseObject) throws IOException {
-            String response = GSON.toJson(responseObject);
-            byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        public StatusHandler(DiscordPlayerInfo plugin) {
+            this.plugin = plugin;
+        }
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!handlePreflightAndAuth(plugin, exchange, "GET, OPTIONS")) return;
+            
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET method is allowed"));
+                return;
+            }
+            
+            // Einfache Status-Response mit Server-Informationen
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", plugin.isReady() ? "online" : "starting");
+            response.put("version", plugin.getDescription().getVersion());
+            response.put("serverName", Bukkit.getServer().getName());
+            response.put("serverVersion", Bukkit.getServer().getVersion());
+            response.put("apiVersion", plugin.getDescription().getVersion());
+            response.put("apiRequestCount", REQUEST_COUNT.get());
+            response.put("playerCount", plugin.getOnlineRoster().getSnapshot().getPlayers().size());
+            response.put("serverLoad", plugin.getTickMonitor().getLevel().name().toLowerCase());
+            
+            sendResponse(exchange, 200, response);
+        }
+    }
+    
+    /**
+     * Handler für /api/network Endpunkt
+     * Liefert die netzwerkweite Spielerliste im Föderationsmodus
+     */
+    public static class NetworkHandler implements HttpHandler {
+        private final DiscordPlayerInfo plugin;
+        
+        public NetworkHandler(DiscordPlayerInfo plugin) {
+            this.plugin = plugin;
+        }
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!handlePreflightAndAuth(plugin, exchange, "GET, OPTIONS")) return;
             
-            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
-            exchange.sendResponseHeaders(statusCode, responseBytes.length);
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET method is allowed"));
+                return;
+            }
             
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(responseBytes);
+            String path = exchange.getRequestURI().getPath();
+            String[] pathParts = path.split("/");
+            
+            if (pathParts.length < 4 || !pathParts[3].equals("players")) {
+                sendResponse(exchange, 404, errorResponse("Not Found", "Invalid API endpoint"));
+                return;
             }
+            
+            // Wird beim Plugin-Start asynchron initialisiert
+            FederationManager federationManager = plugin.getFederationManager();
+            if (federationManager == null) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                sendResponse(exchange, 503, errorResponse("Service Unavailable", "Federation is not available yet"));
+                return;
+            }
+            
+            FederationManager.NetworkSnapshot snapshot = federationManager.getSnapshot();
+            
+            // /api/network/players - Netzwerkweite Spielerliste
+            if (pathParts.length == 4) {
+                sendResponse(exchange, 200, snapshot.toResponse());
+                return;
+            }
+            
+            // /api/network/players/{username} - Node eines Spielers im Netzwerk
+            if (pathParts.length == 5) {
+                Map<String, Object> player = snapshot.findPlayer(pathParts[4]);
+                if (player == null) {
+                    sendResponse(exchange, 404, errorResponse("Not Found", "Player not online in network"));
+                    return;
+                }
+                sendResponse(exchange, 200, player);
+                return;
+            }
+            
+            sendResponse(exchange, 404, errorResponse("Not Found", "Invalid API endpoint"));
+        }
+    }
+    
+    /**
+     * Handler für /api/activity Endpunkt
+     * Liefert die rollierenden Aktivitäts-Aggregate eines Spielers
+     */
+    public static class ActivityHandler implements HttpHandler {
+        private static final long LOOKUP_TIMEOUT_MILLIS = 5000;
+        
+        private final DiscordPlayerInfo plugin;
+        
+        public ActivityHandler(DiscordPlayerInfo plugin) {
+            this.plugin = plugin;
+        }
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!handlePreflightAndAuth(plugin, exchange, "GET, OPTIONS")) return;
+            
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET method is allowed"));
+                return;
+            }
+            
+            String path = exchange.getRequestURI().getPath();
+            String[] pathParts = path.split("/");
+            
+            // /api/activity/{username|uuid} - Aktivität eines Spielers abrufen
+            if (pathParts.length != 4) {
+                sendResponse(exchange, 404, errorResponse("Not Found", "Invalid API endpoint"));
+                return;
+            }
+            
+            // Das Protokoll wird beim Plugin-Start asynchron eingelesen
+            ActivityLog activityLog = plugin.getActivityLog();
+            if (activityLog == null || !activityLog.isLoaded()) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                sendResponse(exchange, 503, errorResponse("Service Unavailable", "Activity log is not available yet"));
+                return;
+            }
+            
+            UUID playerUUID = resolvePlayer(activityLog, pathParts[3]);
+            Map<String, Object> activity = playerUUID != null ? activityLog.getActivity(playerUUID) : null;
+            if (activity == null) {
+                sendResponse(exchange, 404, errorResponse("Not Found", "No activity recorded for player"));
+                return;
+            }
+            
+            sendResponse(exchange, 200, activity);
         }
         
         /**
-         * Erstellt eine standardisierte Fehlerantwort
+         * Ermittelt die UUID eines Spielers aus einer UUID oder einem Spielernamen
+         * Namen werden aus dem Aktivitätsprotokoll und sonst über LuckPerms aufgelöst.
          * 
-         * @param error Fehlertyp
-         * @param message Fehlermeldung
-         * @return Map mit Fehlerinformationen
+         * @param activityLog Aktivitätsprotokoll
+         * @param player UUID oder Spielername
+         * @return UUID oder null, wenn der Spieler unbekannt ist
          */
-        private Map<String, Object> createErrorResponse(String error, String message) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", error);
-            errorResponse.put("message", message);
-            return errorResponse;
+        private UUID resolvePlayer(ActivityLog activityLog, String player) {
+            if (player.length() == 36) {
+                try {
+                    return UUID.fromString(player);
+                } catch (IllegalArgumentException e) {
+                    // Kein UUID-Format, als Name behandeln
+                }
+            }
+            
+            UUID playerUUID = activityLog.findPlayer(player);
+            if (playerUUID != null) {
+                return playerUUID;
+            }
+            
+            // Namen, die seit dem Start nicht beigetreten sind, über den Speicher von LuckPerms auflösen
+            // (keine Namensabfrage über Bukkit, die bei Mojang nachfragen und den API-Thread blockieren kann)
+            PermissionsManager permissionsManager = plugin.getPermissionsManager();
+            if (permissionsManager == null) return null;
+            try {
+                return permissionsManager.lookupUniqueId(player).get(LOOKUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                return null;
+            }
         }
     }
     
     /**
-     * Handler für /api/status Endpunkt
-     * Implementiert einen Health-Check für den Discord-Bot
+     * Handler für /api/players/changes Endpunkt
+     * Liefert alle Spieler, deren Zustand sich seit einer bestimmten Version geändert hat
      */
-    public static class StatusHandler implements HttpHandler {
+    public static class ChangesHandler implements HttpHandler {
         private final DiscordPlayerInfo plugin;
+        private final ChangeJournal changeJournal;
+        private final int maxChanges;
         
-        public StatusHandler(DiscordPlayerInfo plugin) {
+        public ChangesHandler(DiscordPlayerInfo plugin, ChangeJournal changeJournal) {
             this.plugin = plugin;
+            this.changeJournal = changeJournal;
+            this.maxChanges = Math.max(1, plugin.getPluginConfig().getInt("sync.max-changes", 100));
         }
         
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            REQUEST_COUNT.incrementAndGet();
-            
-            // CORS-Header hinzufügen, falls aktiviert
-            if (plugin.getPluginConfig().getBoolean("api.allow-cors", true)) {
-                Headers headers = exchange.getResponseHeaders();
-                headers.add("Access-Control-Allow-Origin", 
-                    plugin.getPluginConfig().getString("api.allowed-origins", "*"));
-                headers.add("Access-Control-Allow-Methods", "GET, OPTIONS");
-                headers.add("Access-Control-Allow-Headers", "Content-Type, Authorization");
+            if (!handlePreflightAndAuth(plugin, exchange, "GET, OPTIONS")) return;
+            
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET method is allowed"));
+                return;
+            }
+            
+            if (exchange.getRequestURI().getPath().split("/").length != 4) {
+                sendResponse(exchange, 404, errorResponse("Not Found", "Invalid API endpoint"));
+                return;
+            }
+            
+            if (!plugin.isReady()) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                sendResponse(exchange, 503, errorResponse("Service Unavailable", "Plugin is starting"));
+                return;
+            }
+            
+            Set<String> fields;
+            long since;
+            try {
+                fields = PlayerFieldResolver.parseFields(getQueryParameter(exchange, "fields"));
+                String sinceParam = getQueryParameter(exchange, "since");
+                since = sinceParam != null ? Long.parseLong(sinceParam) : -1;
                 
-                if (exchange.getRequestMethod().equalsIgnoreCase("OPTIONS")) {
-                    exchange.sendResponseHeaders(204, -1);
-                    return;
+                // Versionen aus einem früheren Plugin-Start sind nicht vergleichbar
+                String epochParam = getQueryParameter(exchange, "epoch");
+                if (epochParam != null && Long.parseLong(epochParam) != changeJournal.getEpoch()) {
+                    since = -1;
                 }
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, errorResponse("Bad Request", e.getMessage()));
+                return;
             }
             
-            // Prüfen der API-Authentifizierung
-            String apiKey = plugin.getPluginConfig().getString("api.api-key", "");
-            if (!apiKey.isEmpty()) {
-                Headers headers = exchange.getRequestHeaders();
-                String authHeader = headers.getFirst("Authorization");
+            List<ChangeJournal.Change> changes = changeJournal.getChangesSince(since);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("epoch", changeJournal.getEpoch());
+            
+            // Client ist zu weit zurück (oder kennt noch keine Version): vollständiger Abgleich nötig
+            if (changes == null) {
+                response.put("version", changeJournal.getVersion());
+                response.put("fullResync", true);
+                sendResponse(exchange, 200, response);
+                return;
+            }
+            
+            // Jede Änderung kann Spielerdaten aus LuckPerms laden, daher höchstens maxChanges pro Antwort.
+            // Die Änderungen sind nach Version sortiert, der Rest folgt mit der zurückgegebenen Version.
+            boolean hasMore = changes.size() > maxChanges;
+            if (hasMore) {
+                changes = changes.subList(0, maxChanges);
+            }
+            
+            Map<String, String> online = plugin.getOnlineRoster().getSnapshot().getPlayers();
+            List<Map<String, Object>> records = new ArrayList<>();
+            long latest = since;
+            for (ChangeJournal.Change change : changes) {
+                Map<String, Object> record = new HashMap<>();
+                record.put("uuid", change.getPlayerUUID().toString());
+                record.put("version", change.getVersion());
+                record.put("changed", ChangeJournal.kindNames(change.getKinds()));
                 
-                if (authHeader == null || !authHeader.equals("Bearer " + apiKey)) {
-                    sendResponse(exchange, 401, createErrorResponse("Unauthorized", "Invalid API key"));
+                String username = resolveName(change.getPlayerUUID(), online);
+                record.put("player", username != null ? plugin.getPlayerData(username, fields) : null);
+                records.add(record);
+                latest = Math.max(latest, change.getVersion());
+            }
+            
+            response.put("version", latest);
+            response.put("fullResync", false);
+            response.put("hasMore", hasMore);
+            response.put("changes", records);
+            sendResponse(exchange, 200, response);
+        }
+        
+        /**
+         * Ermittelt den Namen eines Spielers ohne Speicherzugriff, wo möglich: zuerst aus der
+         * Online-Liste, dann aus den von LuckPerms geladenen Usern, zuletzt aus den Spielerdaten des Servers
+         * 
+         * @param playerUUID UUID des Spielers
+         * @param online Aktuelle Online-Liste (UUID -> Name)
+         * @return Spielername oder null, wenn unbekannt
+         */
+        private String resolveName(UUID playerUUID, Map<String, String> online) {
+            String name = online.get(playerUUID.toString());
+            if (name != null) return name;
+            
+            if (plugin.getLuckPerms() != null) {
+                User user = plugin.getLuckPerms().getUserManager().getUser(playerUUID);
+                if (user != null && user.getUsername() != null) {
+                    return user.getUsername();
+                }
+            }
+            return Bukkit.getOfflinePlayer(playerUUID).getName();
+        }
+    }
+    
+    /**
+     * Handler für /api/permissions/check Endpunkt
+     * Prüft mehrere Berechtigungen für mehrere Spieler in einer Anfrage und liefert eine Ergebnismatrix
+     */
+    public static class PermissionsHandler implements HttpHandler {
+        private static final int MAX_BODY_BYTES = 65536;
+        private static final long TIMEOUT_MILLIS = 10000;
+        
+        private final DiscordPlayerInfo plugin;
+        
+        public PermissionsHandler(DiscordPlayerInfo plugin) {
+            this.plugin = plugin;
+        }
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!handlePreflightAndAuth(plugin, exchange, "GET, POST, OPTIONS")) return;
+            
+            String[] pathParts = exchange.getRequestURI().getPath().split("/");
+            if (pathParts.length != 4 || !pathParts[3].equals("check")) {
+                sendResponse(exchange, 404, errorResponse("Not Found", "Invalid API endpoint"));
+                return;
+            }
+            
+            PermissionsManager permissionsManager = plugin.getPermissionsManager();
+            if (permissionsManager == null) {
+                sendResponse(exchange, 503, errorResponse("Service Unavailable", "LuckPerms is not available"));
+                return;
+            }
+            
+            // GET mit ?players=a,b&nodes=x,y oder POST mit {"players": [...], "nodes": [...]}
+            CheckRequest request;
+            if (exchange.getRequestMethod().equals("GET")) {
+                request = new CheckRequest();
+                request.players = splitList(getQueryParameter(exchange, "players"));
+                request.nodes = splitList(getQueryParameter(exchange, "nodes"));
+            } else if (exchange.getRequestMethod().equals("POST")) {
+                byte[] body;
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = in.readNBytes(MAX_BODY_BYTES + 1);
+                }
+                if (body.length > MAX_BODY_BYTES) {
+                    sendResponse(exchange, 413, errorResponse("Payload Too Large", "Request body exceeds " + MAX_BODY_BYTES + " bytes"));
+                    return;
+                }
+                try {
+                    request = GSON.fromJson(new String(body, StandardCharsets.UTF_8), CheckRequest.class);
+                } catch (JsonParseException e) {
+                    sendResponse(exchange, 400, errorResponse("Bad Request", "Invalid JSON body"));
                     return;
                 }
+            } else {
+                sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET and POST methods are allowed"));
+                return;
             }
             
-            // Log API-Anfragen im Debug-Modus
-            if (plugin.getPluginConfig().getBoolean("debug.log-api-requests", false)) {
-                plugin.getLogger().info("API status request received");
+            String validationError = validate(request);
+            if (validationError != null) {
+                sendResponse(exchange, 400, errorResponse("Bad Request", validationError));
+                return;
             }
             
-            if (!exchange.getRequestMethod().equals("GET")) {
-                sendResponse(exchange, 405, createErrorResponse("Method Not Allowed", "Only GET method is allowed"));
+            // Namen auflösen, danach jeden User einmal laden und alle Knoten prüfen
+            Map<String, CompletableFuture<UUID>> lookups = new LinkedHashMap<>();
+            for (String player : request.players) {
+                lookups.computeIfAbsent(player, permissionsManager::lookupUniqueId);
+            }
+            List<String> nodes = request.nodes;
+            CompletableFuture<Map<UUID, boolean[]>> check = CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0]))
+                    .thenCompose(ignored -> {
+                        List<UUID> uuids = new ArrayList<>();
+                        for (CompletableFuture<UUID> lookup : lookups.values()) {
+                            if (lookup.join() != null) {
+                                uuids.add(lookup.join());
+                            }
+                        }
+                        return permissionsManager.checkPermissions(uuids, nodes);
+                    });
+            
+            Map<UUID, boolean[]> results;
+            try {
+                results = check.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                sendResponse(exchange, 504, errorResponse("Gateway Timeout", "LuckPerms did not respond in time"));
+                return;
+            } catch (ExecutionException e) {
+                plugin.getLogger().warning("Permission check failed: " + e.getCause());
+                sendResponse(exchange, 500, errorResponse("Internal Server Error", "Permission check failed"));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendResponse(exchange, 500, errorResponse("Internal Server Error", "Permission check interrupted"));
                 return;
             }
             
-            // Einfache Status-Response mit Server-Informationen
-            Map<String, Object> response = new HashMap<>();
-            response.put("status", "online");
-            response.put("version", plugin.getDescription().getVersion());
-            response.put("serverName", Bukkit.getServer().getName());
-            response.put("serverVersion", Bukkit.getServer().getVersion());
-            response.put("apiVersion", plugin.getDescription().getVersion());
-            response.put("apiRequestCount", REQUEST_COUNT.get());
-            response.put("playerCount", Bukkit.getOnlinePlayers().size());
+            // Eine Zeile pro angefragtem Spieler, Spalten in der Reihenfolge der Knoten
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (String player : request.players) {
+                UUID playerUUID = lookups.get(player).join();
+                Map<String, Object> row = new HashMap<>();
+                row.put("player", player);
+                row.put("uuid", playerUUID != null ? playerUUID.toString() : null);
+                row.put("permissions", playerUUID != null ? results.get(playerUUID) : null);
+                rows.add(row);
+            }
             
+            Map<String, Object> response = new HashMap<>();
+            response.put("nodes", nodes);
+            response.put("players", rows);
             sendResponse(exchange, 200, response);
         }
         
         /**
-         * Sendet eine JSON-Antwort zurück
+         * Prüft Vollständigkeit und Umfang einer Anfrage
          * 
-         * @param exchange HttpExchange-Objekt
-         * @param statusCode HTTP-Statuscode
-         * @param responseObject Antwortobjekt (wird zu JSON konvertiert)
-         * @throws IOException wenn ein Fehler beim Senden auftritt
+         * @param request Anfrage
+         * @return Fehlermeldung oder null, wenn die Anfrage gültig ist
          */
-        private void sendResponse(HttpExchange exchange, int statusCode, Object responseObject) throws IOException {
-            String response = GSON.toJson(responseObject);
-            byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        private String validate(CheckRequest request) {
+            if (request == null || request.players == null || request.players.isEmpty()) {
+                return "At least one player is required";
+            }
+            if (request.nodes == null || request.nodes.isEmpty()) {
+                return "At least one permission node is required";
+            }
             
-            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
-            exchange.sendResponseHeaders(statusCode, responseBytes.length);
+            int maxPlayers = plugin.getPluginConfig().getInt("permissions.max-players", 100);
+            int maxNodes = plugin.getPluginConfig().getInt("permissions.max-nodes", 50);
+            if (request.players.size() > maxPlayers) {
+                return "Too many players (max " + maxPlayers + ")";
+            }
+            if (request.nodes.size() > maxNodes) {
+                return "Too many permission nodes (max " + maxNodes + ")";
+            }
             
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(responseBytes);
+            for (String player : request.players) {
+                if (player == null || player.isBlank()) return "Player names must not be empty";
+            }
+            for (String node : request.nodes) {
+                if (node == null || node.isBlank()) return "Permission nodes must not be empty";
             }
+            return null;
         }
         
         /**
-         * Erstellt eine standardisierte Fehlerantwort
+         * Zerlegt eine kommagetrennte Liste aus einem Query-Parameter
          * 
-         * @param error Fehlertyp
-         * @param message Fehlermeldung
-         * @return Map mit Fehlerinformationen
+         * @param value Wert des Parameters oder null
+         * @return Einträge ohne Leerzeichen oder null, wenn der Parameter fehlt
+         */
+        private List<String> splitList(String value) {
+            if (value == null || value.isEmpty()) return null;
+            
+            List<String> entries = new ArrayList<>();
+            for (String entry : value.split(",")) {
+                entries.add(entry.trim());
+            }
+            return entries;
+        }
+        
+        /**
+         * Anfrage-Body für POST-Anfragen
+         */
+        private static class CheckRequest {
+            private List<String> players;
+            private List<String> nodes;
+        }
+    }
+    
+    /**
+     * Handler für /api/worlds Endpunkt
+     * Beantwortet Umkreis- und Regionsabfragen aus dem räumlichen Index, ohne alle Spieler zu durchsuchen
+     */
+    public static class WorldsHandler implements HttpHandler {
+        private final DiscordPlayerInfo plugin;
+        
+        public WorldsHandler(DiscordPlayerInfo plugin) {
+            this.plugin = plugin;
+        }
+        
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!handlePreflightAndAuth(plugin, exchange, "GET, OPTIONS")) return;
+            
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendResponse(exchange, 405, errorResponse("Method Not Allowed", "Only GET method is allowed"));
+                return;
+            }
+            
+            // Positionen werden wie das Feld "location" nur mit player-data.include-stats herausgegeben
+            if (!plugin.getPluginConfig().getBoolean("player-data.include-stats")) {
+                sendResponse(exchange, 403, errorResponse("Forbidden", "Player locations are disabled"));
+                return;
+            }
+            
+            SpatialIndex spatialIndex = plugin.getSpatialIndex();
+            if (spatialIndex == null) {
+                sendResponse(exchange, 503, errorResponse("Service Unavailable", "Spatial index is not available, restart the server to enable it"));
+                return;
+            }
+            
+            String[] pathParts = exchange.getRequestURI().getPath().split("/");
+            
+            // /api/worlds - Welten mit Spielerzahl
+            if (pathParts.length == 3) {
+                List<Map<String, Object>> worlds = new ArrayList<>();
+                for (String world : spatialIndex.getWorldNames()) {
+                    Map<String, Object> entry = new LinkedHashMap<>();
+                    entry.put("name", world);
+                    entry.put("players", spatialIndex.getPlayerCount(world));
+                    worlds.add(entry);
+                }
+                Map<String, Object> response = new HashMap<>();
+                response.put("worlds", worlds);
+                sendResponse(exchange, 200, response);
+                return;
+            }
+            
+            if (pathParts.length != 5 || !spatialIndex.hasWorld(pathParts[3])) {
+                sendResponse(exchange, 404, errorResponse("Not Found", "Unknown world or API endpoint"));
+                return;
+            }
+            
+            String world = pathParts[3];
+            switch (pathParts[4]) {
+                case "players":
+                    handleNearby(exchange, spatialIndex, world);
+                    break;
+                case "regions": {
+                    // /api/worlds/{world}/regions - Spieler pro Region (32x32 Chunks)
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("world", world);
+                    response.put("players", spatialIndex.getPlayerCount(world));
+                    response.put("regionSize", 1 << SpatialIndex.REGION_SHIFT);
+                    response.put("regions", spatialIndex.countRegions(world));
+                    sendResponse(exchange, 200, response);
+                    break;
+                }
+                default:
+                    sendResponse(exchange, 404, errorResponse("Not Found", "Invalid API endpoint"));
+            }
+        }
+        
+        /**
+         * /api/worlds/{world}/players?x=&z=&radius= - Spieler im Umkreis eines Punktes
          */
-        private Map<String, Object> createErrorResponse(String error, String message) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", error);
-            errorResponse.put("message", message);
-            return errorResponse;
+        private void handleNearby(HttpExchange exchange, SpatialIndex spatialIndex, String world) throws IOException {
+            int x;
+            int z;
+            int radius;
+            try {
+                x = Integer.parseInt(getQueryParameter(exchange, "x"));
+                z = Integer.parseInt(getQueryParameter(exchange, "z"));
+                radius = Integer.parseInt(getQueryParameter(exchange, "radius"));
+            } catch (NumberFormatException e) {
+                sendResponse(exchange, 400, errorResponse("Bad Request", "Parameters x, z and radius must be integers"));
+                return;
+            }
+            
+            if (Math.abs(x) > SpatialIndex.MAX_COORDINATE || Math.abs(z) > SpatialIndex.MAX_COORDINATE) {
+                sendResponse(exchange, 400, errorResponse("Bad Request",
+                        "x and z must be between -" + SpatialIndex.MAX_COORDINATE + " and " + SpatialIndex.MAX_COORDINATE));
+                return;
+            }
+            
+            int maxRadius = plugin.getPluginConfig().getInt("spatial.max-radius", 1024);
+            if (radius < 0 || radius > maxRadius) {
+                sendResponse(exchange, 400, errorResponse("Bad Request", "radius must be between 0 and " + maxRadius));
+                return;
+            }
+            
+            List<Map<String, Object>> players = spatialIndex.findNearby(world, x, z, radius);
+            Map<String, Object> response = new HashMap<>();
+            response.put("world", world);
+            response.put("x", x);
+            response.put("z", z);
+            response.put("radius", radius);
+            response.put("count", players.size());
+            response.put("players", players);
+            sendResponse(exchange, 200, response);
         }
     }
 }
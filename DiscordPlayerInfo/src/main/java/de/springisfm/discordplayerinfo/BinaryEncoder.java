@@ -0,0 +1,445 @@
+package de.springisfm.discordplayerinfo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Kodiert API-Antworten (Maps, Listen, Arrays und einfache Werte) als CBOR oder MessagePack
+ * Die Struktur entspricht der JSON-Ausgabe von Gson. UUID-Objekte (auch als Map-Schlüssel) und
+ * Werte des Felds "uuid" werden als 16 Bytes geschrieben (CBOR mit Tag 37, MessagePack als bin).
+ * Andere Zeichenketten bleiben Text, auch wenn sie wie eine UUID aussehen (z.B. zurückgegebene
+ * Eingaben), damit ein Feld nicht je nach Inhalt seinen Typ wechselt. Unbekannte Objekte werden
+ * über Gson in einen JSON-Baum umgewandelt.
+ */
+public abstract class BinaryEncoder {
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+    private static final String UUID_FIELD = "uuid";
+    
+    private byte[] buffer = new byte[256];
+    private int size;
+    
+    /**
+     * Kodiert einen Wert als CBOR (RFC 8949)
+     * 
+     * @param value Zu kodierender Wert
+     * @return Kodierte Bytes
+     */
+    public static byte[] encodeCbor(Object value) {
+        BinaryEncoder encoder = new CborEncoder();
+        encoder.write(value);
+        return encoder.toByteArray();
+    }
+    
+    /**
+     * Kodiert einen Wert als MessagePack
+     * 
+     * @param value Zu kodierender Wert
+     * @return Kodierte Bytes
+     */
+    public static byte[] encodeMsgPack(Object value) {
+        BinaryEncoder encoder = new MsgPackEncoder();
+        encoder.write(value);
+        return encoder.toByteArray();
+    }
+    
+    protected abstract void writeNull();
+    
+    protected abstract void writeBoolean(boolean value);
+    
+    protected abstract void writeLong(long value);
+    
+    protected abstract void writeDouble(double value);
+    
+    protected abstract void writeString(byte[] utf8);
+    
+    protected abstract void writeUuid(UUID uuid);
+    
+    protected abstract void writeArrayHeader(int length);
+    
+    protected abstract void writeMapHeader(int length);
+    
+    private void write(Object value) {
+        if (value == null) {
+            writeNull();
+        } else if (value instanceof String) {
+            writeText((String) value);
+        } else if (value instanceof Boolean) {
+            writeBoolean((Boolean) value);
+        } else if (value instanceof Number) {
+            writeNumber((Number) value);
+        } else if (value instanceof UUID) {
+            writeUuid((UUID) value);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeMapHeader(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(entry.getKey() instanceof UUID ? entry.getKey() : String.valueOf(entry.getKey()));
+                if (UUID_FIELD.equals(entry.getKey()) && entry.getValue() instanceof String) {
+                    writeUuidField((String) entry.getValue());
+                } else {
+                    write(entry.getValue());
+                }
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            writeArrayHeader(collection.size());
+            for (Object element : collection) {
+                write(element);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            writeArrayHeader(length);
+            for (int i = 0; i < length; i++) {
+                write(Array.get(value, i));
+            }
+        } else if (value instanceof Enum) {
+            writeText(((Enum<?>) value).name());
+        } else if (value instanceof Character) {
+            writeText(value.toString());
+        } else if (value instanceof JsonElement) {
+            writeJson((JsonElement) value);
+        } else {
+            writeJson(GSON.toJsonTree(value));
+        }
+    }
+    
+    private void writeText(String value) {
+        writeString(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Schreibt den Wert eines bekannten UUID-Felds, ungültige Werte bleiben Text
+     */
+    private void writeUuidField(String value) {
+        if (isUuid(value)) {
+            writeUuid(UUID.fromString(value));
+        } else {
+            writeText(value);
+        }
+    }
+    
+    private void writeNumber(Number number) {
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            writeLong(number.longValue());
+        } else if (number instanceof BigInteger && ((BigInteger) number).bitLength() < 64) {
+            writeLong(number.longValue());
+        } else if (number instanceof Float || number instanceof Double || number instanceof BigDecimal || number instanceof BigInteger) {
+            writeDouble(number.doubleValue());
+        } else {
+            // z.B. LazilyParsedNumber von Gson: ganze Zahlen bleiben ganze Zahlen
+            String text = number.toString();
+            try {
+                writeLong(Long.parseLong(text));
+            } catch (NumberFormatException e) {
+                writeDouble(number.doubleValue());
+            }
+        }
+    }
+    
+    private void writeJson(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            writeNull();
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            writeMapHeader(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                writeText(entry.getKey());
+                JsonElement value = entry.getValue();
+                if (UUID_FIELD.equals(entry.getKey()) && value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+                    writeUuidField(value.getAsString());
+                } else {
+                    writeJson(value);
+                }
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            writeArrayHeader(array.size());
+            for (JsonElement child : array) {
+                writeJson(child);
+            }
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                writeBoolean(primitive.getAsBoolean());
+            } else if (primitive.isNumber()) {
+                writeNumber(primitive.getAsNumber());
+            } else {
+                writeText(primitive.getAsString());
+            }
+        }
+    }
+    
+    /**
+     * Prüft, ob eine Zeichenkette eine UUID im Standardformat (8-4-4-4-12 Hex-Zeichen) ist
+     * 
+     * @param value Zeichenkette
+     * @return true, wenn es sich um eine UUID handelt
+     */
+    static boolean isUuid(String value) {
+        if (value.length() != 36) return false;
+        
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    protected void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+    
+    protected void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+    
+    /**
+     * Schreibt die unteren Bytes eines Werts in Big-Endian-Reihenfolge
+     * 
+     * @param value Wert
+     * @param bytes Anzahl der Bytes (1, 2, 4 oder 8)
+     */
+    protected void writeBigEndian(long value, int bytes) {
+        ensureCapacity(bytes);
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (value >>> shift);
+        }
+    }
+    
+    protected void writeUuidBytes(UUID uuid) {
+        writeBigEndian(uuid.getMostSignificantBits(), 8);
+        writeBigEndian(uuid.getLeastSignificantBits(), 8);
+    }
+    
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+    
+    private byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+    
+    /**
+     * CBOR-Kodierung (RFC 8949), Längen immer definit
+     */
+    private static class CborEncoder extends BinaryEncoder {
+        private static final int UNSIGNED = 0;
+        private static final int NEGATIVE = 1;
+        private static final int BYTES = 2;
+        private static final int TEXT = 3;
+        private static final int ARRAY = 4;
+        private static final int MAP = 5;
+        private static final int TAG = 6;
+        private static final int UUID_TAG = 37;
+        
+        @Override
+        protected void writeNull() {
+            writeByte(0xf6);
+        }
+        
+        @Override
+        protected void writeBoolean(boolean value) {
+            writeByte(value ? 0xf5 : 0xf4);
+        }
+        
+        @Override
+        protected void writeLong(long value) {
+            if (value >= 0) {
+                writeHeader(UNSIGNED, value);
+            } else {
+                writeHeader(NEGATIVE, ~value);
+            }
+        }
+        
+        @Override
+        protected void writeDouble(double value) {
+            // Float32 genügt, wenn der Wert dadurch nicht verändert wird
+            float single = (float) value;
+            if (single == value || Double.isNaN(value)) {
+                writeByte(0xfa);
+                writeBigEndian(Float.floatToIntBits(single), 4);
+            } else {
+                writeByte(0xfb);
+                writeBigEndian(Double.doubleToLongBits(value), 8);
+            }
+        }
+        
+        @Override
+        protected void writeString(byte[] utf8) {
+            writeHeader(TEXT, utf8.length);
+            writeBytes(utf8);
+        }
+        
+        @Override
+        protected void writeUuid(UUID uuid) {
+            writeHeader(TAG, UUID_TAG);
+            writeHeader(BYTES, 16);
+            writeUuidBytes(uuid);
+        }
+        
+        @Override
+        protected void writeArrayHeader(int length) {
+            writeHeader(ARRAY, length);
+        }
+        
+        @Override
+        protected void writeMapHeader(int length) {
+            writeHeader(MAP, length);
+        }
+        
+        private void writeHeader(int majorType, long value) {
+            int type = majorType << 5;
+            if (value < 24) {
+                writeByte(type | (int) value);
+            } else if (value <= 0xffL) {
+                writeByte(type | 24);
+                writeBigEndian(value, 1);
+            } else if (value <= 0xffffL) {
+                writeByte(type | 25);
+                writeBigEndian(value, 2);
+            } else if (value <= 0xffffffffL) {
+                writeByte(type | 26);
+                writeBigEndian(value, 4);
+            } else {
+                writeByte(type | 27);
+                writeBigEndian(value, 8);
+            }
+        }
+    }
+    
+    /**
+     * MessagePack-Kodierung, jeweils im kürzesten passenden Format
+     */
+    private static class MsgPackEncoder extends BinaryEncoder {
+        @Override
+        protected void writeNull() {
+            writeByte(0xc0);
+        }
+        
+        @Override
+        protected void writeBoolean(boolean value) {
+            writeByte(value ? 0xc3 : 0xc2);
+        }
+        
+        @Override
+        protected void writeLong(long value) {
+            if (value >= 0) {
+                if (value < 128) {
+                    writeByte((int) value);
+                } else if (value <= 0xffL) {
+                    writeByte(0xcc);
+                    writeBigEndian(value, 1);
+                } else if (value <= 0xffffL) {
+                    writeByte(0xcd);
+                    writeBigEndian(value, 2);
+                } else if (value <= 0xffffffffL) {
+                    writeByte(0xce);
+                    writeBigEndian(value, 4);
+                } else {
+                    writeByte(0xcf);
+                    writeBigEndian(value, 8);
+                }
+            } else if (value >= -32) {
+                writeByte((int) value & 0xff);
+            } else if (value >= Byte.MIN_VALUE) {
+                writeByte(0xd0);
+                writeBigEndian(value, 1);
+            } else if (value >= Short.MIN_VALUE) {
+                writeByte(0xd1);
+                writeBigEndian(value, 2);
+            } else if (value >= Integer.MIN_VALUE) {
+                writeByte(0xd2);
+                writeBigEndian(value, 4);
+            } else {
+                writeByte(0xd3);
+                writeBigEndian(value, 8);
+            }
+        }
+        
+        @Override
+        protected void writeDouble(double value) {
+            // Float32 genügt, wenn der Wert dadurch nicht verändert wird
+            float single = (float) value;
+            if (single == value || Double.isNaN(value)) {
+                writeByte(0xca);
+                writeBigEndian(Float.floatToIntBits(single), 4);
+            } else {
+                writeByte(0xcb);
+                writeBigEndian(Double.doubleToLongBits(value), 8);
+            }
+        }
+        
+        @Override
+        protected void writeString(byte[] utf8) {
+            int length = utf8.length;
+            if (length < 32) {
+                writeByte(0xa0 | length);
+            } else if (length <= 0xff) {
+                writeByte(0xd9);
+                writeBigEndian(length, 1);
+            } else if (length <= 0xffff) {
+                writeByte(0xda);
+                writeBigEndian(length, 2);
+            } else {
+                writeByte(0xdb);
+                writeBigEndian(length, 4);
+            }
+            writeBytes(utf8);
+        }
+        
+        @Override
+        protected void writeUuid(UUID uuid) {
+            writeByte(0xc4);
+            writeByte(16);
+            writeUuidBytes(uuid);
+        }
+        
+        @Override
+        protected void writeArrayHeader(int length) {
+            if (length < 16) {
+                writeByte(0x90 | length);
+            } else if (length <= 0xffff) {
+                writeByte(0xdc);
+                writeBigEndian(length, 2);
+            } else {
+                writeByte(0xdd);
+                writeBigEndian(length, 4);
+            }
+        }
+        
+        @Override
+        protected void writeMapHeader(int length) {
+            if (length < 16) {
+                writeByte(0x80 | length);
+            } else if (length <= 0xffff) {
+                writeByte(0xde);
+                writeBigEndian(length, 2);
+            } else {
+                writeByte(0xdf);
+                writeBigEndian(length, 4);
+            }
+        }
+    }
+}
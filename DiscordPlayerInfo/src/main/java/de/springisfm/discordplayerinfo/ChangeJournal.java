@@ -0,0 +1,135 @@
+package de.springisfm.discordplayerinfo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Journal über Änderungen an Spielerzuständen für die Delta-Synchronisation
+ * Jede Änderung (Online-Status, Rang, AFK, Zeitzone) erhöht eine globale Version
+ * und wird in einem Ringpuffer fester Größe abgelegt. Clients fragen nur die
+ * Änderungen seit ihrer zuletzt bekannten Version ab; ist diese bereits aus dem
+ * Puffer gefallen, muss der Client einen vollständigen Abgleich durchführen.
+ */
+public class ChangeJournal {
+    public static final int PRESENCE = 1;
+    public static final int RANK = 1 << 1;
+    public static final int AFK = 1 << 2;
+    public static final int TIMEZONE = 1 << 3;
+    
+    private final long epoch;
+    private final int capacity;
+    private final UUID[] players;
+    private final int[] kinds;
+    private long version = 0;
+    
+    public ChangeJournal(int capacity) {
+        this.epoch = System.currentTimeMillis();
+        this.capacity = Math.max(16, capacity);
+        this.players = new UUID[this.capacity];
+        this.kinds = new int[this.capacity];
+    }
+    
+    /**
+     * Trägt eine Änderung ein
+     * 
+     * @param playerUUID UUID des betroffenen Spielers
+     * @param kind Art der Änderung (PRESENCE, RANK, AFK oder TIMEZONE)
+     * @return Neue Version
+     */
+    public synchronized long record(UUID playerUUID, int kind) {
+        version++;
+        int slot = (int) (version % capacity);
+        players[slot] = playerUUID;
+        kinds[slot] = kind;
+        return version;
+    }
+    
+    /**
+     * Gibt die aktuelle Version zurück
+     * 
+     * @return Aktuelle Version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Gibt den Startzeitpunkt des Journals zurück. Ändert er sich, wurde das Plugin
+     * neu gestartet und alle Versionen sind ungültig.
+     * 
+     * @return Zeitpunkt der Erstellung in Millisekunden
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+    
+    /**
+     * Ermittelt alle Spieler, die sich seit der angegebenen Version geändert haben
+     * 
+     * @param since Zuletzt bekannte Version des Clients
+     * @return Änderungen oder null, wenn ein vollständiger Abgleich nötig ist
+     */
+    public synchronized List<Change> getChangesSince(long since) {
+        long oldestAvailable = Math.max(1, version - capacity + 1);
+        if (since < 0 || since > version || since + 1 < oldestAvailable) {
+            return null;
+        }
+        
+        // Mehrere Änderungen desselben Spielers zusammenfassen
+        Map<UUID, Change> changes = new LinkedHashMap<>();
+        for (long v = since + 1; v <= version; v++) {
+            int slot = (int) (v % capacity);
+            Change change = changes.remove(players[slot]);
+            if (change == null) {
+                change = new Change(players[slot]);
+            }
+            change.kinds |= kinds[slot];
+            change.version = v;
+            changes.put(players[slot], change);
+        }
+        return new ArrayList<>(changes.values());
+    }
+    
+    /**
+     * Gibt die Namen der gesetzten Änderungsarten zurück
+     * 
+     * @param kinds Bitmaske der Änderungsarten
+     * @return Liste der Namen
+     */
+    public static List<String> kindNames(int kinds) {
+        List<String> names = new ArrayList<>();
+        if ((kinds & PRESENCE) != 0) names.add("presence");
+        if ((kinds & RANK) != 0) names.add("rank");
+        if ((kinds & AFK) != 0) names.add("afk");
+        if ((kinds & TIMEZONE) != 0) names.add("timezone");
+        return names;
+    }
+    
+    /**
+     * Zusammengefasste Änderung eines Spielers
+     */
+    public static class Change {
+        private final UUID playerUUID;
+        private int kinds;
+        private long version;
+        
+        Change(UUID playerUUID) {
+            this.playerUUID = playerUUID;
+        }
+        
+        public UUID getPlayerUUID() {
+            return playerUUID;
+        }
+        
+        public int getKinds() {
+            return kinds;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+    }
+}
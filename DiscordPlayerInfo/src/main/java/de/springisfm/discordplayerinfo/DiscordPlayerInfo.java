@@ -1,38 +1,61 @@
 package de.springisfm.discordplayerinfo;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.LuckPermsProvider;
-import net.luckperms.api.model.user.User;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.Statistic;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.entity.Player;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 
 public class DiscordPlayerInfo extends JavaPlugin {
-    private HttpServer server;
+    private volatile HttpServer server;
+    private ExecutorService apiExecutor;
     private FileConfiguration config;
     private LuckPerms luckPerms;
     private boolean essentialsEnabled;
     private PlayerDataCache playerDataCache;
-    private TimeZoneManager timeZoneManager;
+    private volatile TimeZoneManager timeZoneManager;
     private PermissionsManager permissionsManager;
+    private OnlineRoster onlineRoster;
+    private SpatialIndex spatialIndex;
+    private PlayerFieldResolver fieldResolver;
+    private volatile ActivityLog activityLog;
+    private ChangeJournal changeJournal;
+    private volatile FederationManager federationManager;
+    private TickMonitor tickMonitor;
+    private ExecutorService startupExecutor;
+    private CompletableFuture<Void> startup;
+    private volatile boolean ready;
+    private AccessLog accessLog;
     
     @Override
     public void onEnable() {
+        long enableStart = System.nanoTime();
+        
         // Konfiguration speichern/laden
         saveDefaultConfig();
         config = getConfig();
@@ -42,17 +65,88 @@ public class DiscordPlayerInfo extends JavaPlugin {
         config.addDefault("api.api-key", "");
         config.addDefault("api.allow-cors", true);
         config.addDefault("api.allowed-origins", "*");
+        config.addDefault("api.worker-threads", 0);
         config.addDefault("player-data.include-stats", true);
         config.addDefault("player-data.default-timezone", "Europe/Berlin");
         config.addDefault("player-data.cache-duration", 300);
-        config.addDefault("debug.log-api-requests", false);
+        config.addDefault("player-data.cache-max-memory-entries", 1000);
+        config.addDefault("player-data.disk-cache.enabled", true);
+        config.addDefault("player-data.disk-cache.duration", 86400);
+        config.addDefault("debug.enabled", false);
         config.addDefault("debug.log-timezone-events", false);
         config.addDefault("rank-format.title-case", true);
+        config.addDefault("access-log.enabled", true);
+        config.addDefault("access-log.sample-rate", 1.0);
+        config.addDefault("access-log.buffer-size", 8192);
+        config.addDefault("access-log.flush-interval-ms", 500);
+        config.addDefault("access-log.max-file-size-mb", 10);
+        config.addDefault("access-log.max-files", 5);
+        config.addDefault("activity.enabled", true);
+        config.addDefault("activity.segment-size-kb", 1024);
+        config.addDefault("activity.retention-days", 35);
+        config.addDefault("activity.flush-interval-ms", 1000);
+        config.addDefault("sync.journal-size", 4096);
+        config.addDefault("sync.max-changes", 100);
+        config.addDefault("permissions.cache-duration", 5);
+        config.addDefault("permissions.max-players", 100);
+        config.addDefault("permissions.max-nodes", 50);
+        config.addDefault("spatial.max-radius", 1024);
+        config.addDefault("throttle.enabled", true);
+        config.addDefault("throttle.elevated-mspt", 40.0);
+        config.addDefault("throttle.critical-mspt", 50.0);
+        config.addDefault("throttle.elevated-tps", 18.0);
+        config.addDefault("throttle.critical-tps", 15.0);
+        config.addDefault("throttle.recovery-seconds", 10);
+        config.addDefault("throttle.max-stale-seconds", 900);
+        config.addDefault("federation.enabled", false);
+        config.addDefault("federation.node-name", "local");
+        config.addDefault("federation.timeout-ms", 2000);
+        config.addDefault("federation.refresh-interval-ms", 5000);
+        
+        // Datei nur neu schreiben, wenn ihr Standardwerte fehlen (z.B. nach einem Update)
+        boolean missingDefaults = false;
+        for (String key : config.getDefaults().getKeys(true)) {
+            if (!config.contains(key, true)) {
+                missingDefaults = true;
+                break;
+            }
+        }
         config.options().copyDefaults(true);
-        saveConfig();
+        if (missingDefaults) {
+            saveConfig();
+        }
+        
+        // Access-/Debug-Log zuerst, damit alle weiteren Komponenten darüber protokollieren können
+        accessLog = new AccessLog(this);
+        accessLog.start();
         
         // PlayerDataCache initialisieren
         playerDataCache = new PlayerDataCache(this);
+        fieldResolver = new PlayerFieldResolver(this);
+        
+        // Änderungsjournal für die Delta-Synchronisation
+        changeJournal = new ChangeJournal(config.getInt("sync.journal-size", 4096));
+        
+        // Online-Liste initialisieren (bei einem Reload sind bereits Spieler online)
+        onlineRoster = new OnlineRoster();
+        onlineRoster.rebuild();
+        
+        // Räumlicher Index der Spielerpositionen (nur wenn Positionen freigegeben sind)
+        if (config.getBoolean("player-data.include-stats")) {
+            spatialIndex = new SpatialIndex();
+            spatialIndex.rebuild();
+        }
+        
+        // Serverlast überwachen, um das Plugin bei Lag automatisch zu drosseln
+        tickMonitor = new TickMonitor(this);
+        tickMonitor.start();
+        
+        // Aktivitätsprotokoll vor den Listenern anlegen, damit ab jetzt kein Join/Quit verloren geht
+        // Die vorhandenen Segmente werden erst im Startschritt "activity" eingelesen.
+        if (config.getBoolean("activity.enabled")) {
+            activityLog = new ActivityLog(this);
+            activityLog.start(Bukkit.getOnlinePlayers());
+        }
         
         // Event-Listener registrieren
         getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
@@ -64,37 +158,130 @@ public class DiscordPlayerInfo extends JavaPlugin {
             getLogger().info("LuckPerms erfolgreich eingebunden.");
             // PermissionsManager initialisieren
             permissionsManager = new PermissionsManager(this, luckPerms);
+            permissionsManager.subscribeEvents();
         }
         
         // EssentialsX-Integration prüfen
         essentialsEnabled = getServer().getPluginManager().getPlugin("Essentials") != null;
         if (essentialsEnabled) {
             getLogger().info("EssentialsX erkannt. AFK-Status wird in den Spielerdaten angezeigt.");
+            getServer().getPluginManager().registerEvents(new EssentialsListener(this), this);
         }
         
-        // TimeZoneManager initialisieren und aktivieren
-        timeZoneManager = new TimeZoneManager(this);
-        timeZoneManager.initialize();
+        // Aufwendige Schritte laufen parallel außerhalb des Haupt-Threads, bis dahin meldet die API "starting"
+        startupExecutor = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "DiscordPlayerInfo-Startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<CompletableFuture<Void>> phases = new ArrayList<>();
         
         // API-Server starten
-        startApiServer();
+        phases.add(runStartupPhase("http", this::startApiServer));
+        
+        // TimeZoneManager initialisieren und aktivieren
+        phases.add(runStartupPhase("timezones", () -> {
+            TimeZoneManager manager = new TimeZoneManager(this);
+            manager.initialize();
+            timeZoneManager = manager;
+        }));
+        
+        // Bestehende Segmente des Aktivitätsprotokolls einlesen
+        if (activityLog != null) {
+            phases.add(runStartupPhase("activity", activityLog::initialize));
+        }
         
-        getLogger().info("DiscordPlayerInfo aktiviert!");
+        // Föderationsmodus: diese Instanz aggregiert die Spielerlisten weiterer Server
+        if (config.getBoolean("federation.enabled")) {
+            phases.add(runStartupPhase("federation", () -> {
+                federationManager = FederationManager.fromConfig(this);
+                getLogger().info("Federation enabled with " + federationManager.getPeerCount() + " peers");
+            }));
+        }
+        
+        // Index des Festplatten-Caches einlesen, damit die ersten Anfragen nicht darauf warten
+        phases.add(runStartupPhase("disk-cache", playerDataCache::warmUp));
+        
+        startup = CompletableFuture.allOf(phases.toArray(new CompletableFuture[0])).whenComplete((result, error) -> {
+            ready = true;
+            startupExecutor.shutdown();
+            getLogger().info(String.format("DiscordPlayerInfo ready after %.1f ms", (System.nanoTime() - enableStart) / 1_000_000.0));
+        });
+        
+        getLogger().info(String.format("DiscordPlayerInfo aktiviert! (%.1f ms, %d startup phases running in background)",
+                (System.nanoTime() - enableStart) / 1_000_000.0, phases.size()));
+    }
+    
+    /**
+     * Führt einen Schritt des Plugin-Starts asynchron aus und protokolliert seine Dauer
+     * Fehler werden geloggt, damit die übrigen Schritte und die Bereitschaft nicht blockiert werden.
+     * 
+     * @param name Name des Schritts für das Log
+     * @param phase Auszuführender Schritt
+     * @return Future, das nach Abschluss des Schritts (auch bei Fehlern) erfüllt ist
+     */
+    private CompletableFuture<Void> runStartupPhase(String name, Runnable phase) {
+        return CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                phase.run();
+                getLogger().info(String.format("Startup phase '%s' finished in %.1f ms", name, (System.nanoTime() - start) / 1_000_000.0));
+            } catch (RuntimeException e) {
+                getLogger().log(Level.SEVERE, "Startup phase '" + name + "' failed", e);
+            }
+        }, startupExecutor);
     }
     
     @Override
     public void onDisable() {
+        // Laufende Startschritte abwarten, damit nichts halb initialisiert zurückbleibt
+        if (startup != null) {
+            try {
+                startup.get(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                getLogger().warning("Startup did not finish before shutdown: " + e);
+            }
+            startupExecutor.shutdownNow();
+        }
+        
         // HTTP-Server stoppen
         if (server != null) {
-            server.stop(0);
+            stopApiServer();
             getLogger().info("API Server stopped");
         }
         
+        // Föderations-Client beenden
+        if (federationManager != null) {
+            federationManager.shutdown();
+        }
+        
+        // Lastüberwachung beenden
+        if (tickMonitor != null) {
+            tickMonitor.shutdown();
+        }
+        
         // TimeZoneManager herunterfahren und Daten speichern
         if (timeZoneManager != null) {
             timeZoneManager.shutdown();
         }
         
+        // Aktivitätsprotokoll abschließen
+        if (activityLog != null) {
+            activityLog.shutdown();
+        }
+        
+        // Spielerdaten-Cache auf die Festplatte schreiben
+        if (playerDataCache != null) {
+            playerDataCache.shutdown();
+        }
+        
+        // Access-Log leeren und schließen (nach dem HTTP-Server, damit keine Anfragen verloren gehen)
+        if (accessLog != null) {
+            accessLog.shutdown();
+        }
+        
         getLogger().info("DiscordPlayerInfo deaktiviert!");
     }
     
@@ -115,7 +302,7 @@ public class DiscordPlayerInfo extends JavaPlugin {
                 
                 // Restart API if needed
                 if (server != null) {
-                    server.stop(0);
+                    stopApiServer();
                     if (config.getBoolean("api.enabled")) {
                         startApiServer();
                     }
@@ -131,6 +318,25 @@ public class DiscordPlayerInfo extends JavaPlugin {
                     sender.sendMessage("§7Port: §f" + config.getInt("api.port"));
                     sender.sendMessage("§7Requests handled: §f" + ApiHandler.getRequestCount());
                     sender.sendMessage("§7Cache entries: §f" + playerDataCache.getCacheSize());
+                    sender.sendMessage("§7Disk cache entries: §f" + playerDataCache.getDiskCacheSize());
+                    sender.sendMessage("§7Access log: §f" + accessLog.getWrittenCount() + " written§7, §f"
+                            + accessLog.getDroppedCount() + " dropped");
+                    if (activityLog != null) {
+                        sender.sendMessage("§7Activity tracked players: §f" + activityLog.getTrackedPlayerCount());
+                    }
+                    if (federationManager != null) {
+                        sender.sendMessage("§7Federation peers: §f" + federationManager.getPeerCount());
+                    }
+                    if (tickMonitor.isEnabled()) {
+                        sender.sendMessage(String.format("§7Server: §fTPS %.1f, MSPT %.1f ms, load %s",
+                                tickMonitor.getTps(), tickMonitor.getMspt(), tickMonitor.getLevel()));
+                        sender.sendMessage(String.format("§7Plugin main thread: §f%.3f ms/tick avg, %.3f ms max",
+                                tickMonitor.getPluginMillisPerTick(), tickMonitor.getPluginMaxMillisPerTick()));
+                        sender.sendMessage(String.format("§7API player lookups: §f%.1f/s, %.1f ms/s §7(API threads)",
+                                tickMonitor.getRequestLookupsPerSecond(), tickMonitor.getRequestMillisPerSecond()));
+                        sender.sendMessage("§7Stale responses: §f" + tickMonitor.getStaleResponses()
+                                + "§7, deferred roster updates: §f" + tickMonitor.getDeferredSnapshots());
+                    }
                 } else {
                     sender.sendMessage("§cAPI is currently disabled.");
                 }
@@ -154,9 +360,24 @@ public class DiscordPlayerInfo extends JavaPlugin {
         try {
             int port = config.getInt("api.port");
             server = HttpServer.create(new InetSocketAddress(port), 0);
-            server.createContext("/api/players", new ApiHandler.PlayersHandler(this));
-            server.createContext("/api/status", new ApiHandler.StatusHandler(this));
-            server.setExecutor(Executors.newCachedThreadPool());
+            createContext("/api/players", new ApiHandler.PlayersHandler(this));
+            createContext("/api/players/changes", new ApiHandler.ChangesHandler(this, changeJournal));
+            createContext("/api/status", new ApiHandler.StatusHandler(this));
+            createContext("/api/permissions", new ApiHandler.PermissionsHandler(this));
+            createContext("/api/worlds", new ApiHandler.WorldsHandler(this));
+            
+            // Aktivitätsprotokoll und Föderation werden ggf. noch parallel gestartet und erst bei Anfragen aufgelöst
+            if (config.getBoolean("activity.enabled")) {
+                createContext("/api/activity", new ApiHandler.ActivityHandler(this));
+            }
+            if (config.getBoolean("federation.enabled")) {
+                createContext("/api/network", new ApiHandler.NetworkHandler(this));
+            }
+            
+            // 0 = Threads nach Bedarf, sonst fester Pool (begrenzt parallele LuckPerms-Abfragen)
+            int workerThreads = config.getInt("api.worker-threads", 0);
+            apiExecutor = workerThreads > 0 ? Executors.newFixedThreadPool(workerThreads) : Executors.newCachedThreadPool();
+            server.setExecutor(apiExecutor);
             server.start();
             getLogger().info("API Server started on port " + port);
         } catch (IOException e) {
@@ -164,115 +385,105 @@ public class DiscordPlayerInfo extends JavaPlugin {
         }
     }
     
-    public Map<String, Object> getPlayerData(String username) {
-        // Cache prüfen
-        Map<String, Object> cachedData = playerDataCache.getCachedData(username);
-        if (cachedData != null) {
-            return cachedData;
-        }
-        
-        // Spieler suchen
-        OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(username);
-        if (offlinePlayer == null || (!offlinePlayer.hasPlayedBefore() && !offlinePlayer.isOnline())) {
-            return null;
+    /**
+     * Registriert einen Handler und hängt den Access-Log-Filter an
+     */
+    private void createContext(String path, HttpHandler handler) {
+        server.createContext(path, handler).getFilters().add(accessLog.filter());
+    }
+    
+    private void stopApiServer() {
+        server.stop(0);
+        if (apiExecutor != null) {
+            apiExecutor.shutdown();
+            apiExecutor = null;
         }
+    }
+    
+    public Map<String, Object> getPlayerData(String username) {
+        return getPlayerData(username, null);
+    }
+    
+    /**
+     * Ruft Spielerdaten ab, wobei nur die Provider der angeforderten Felder ausgeführt werden
+     * Steht der Server unter Last, werden abgelaufene Cache-Einträge weiter verwendet und
+     * mit "stale": true sowie dem Zeitpunkt der Ermittlung ("cachedAt") gekennzeichnet.
+     * 
+     * @param username Spielername
+     * @param fields Angeforderte Felder oder null für alle Felder
+     * @return Spielerdaten (angeforderte Felder plus username/uuid) oder null, wenn der Spieler unbekannt ist
+     */
+    public Map<String, Object> getPlayerData(String username, Set<String> fields) {
+        Set<String> requiredProviders = PlayerFieldResolver.providersFor(fields);
         
-        Map<String, Object> playerData = new HashMap<>();
-        playerData.put("username", offlinePlayer.getName());
-        playerData.put("uuid", offlinePlayer.getUniqueId().toString());
-        playerData.put("isOnline", offlinePlayer.isOnline());
-        playerData.put("lastSeen", offlinePlayer.getLastPlayed());
-        
-        // Rangdaten über den PermissionsManager abrufen (erweiterte LuckPerms-Integration)
-        if (permissionsManager != null) {
-            Map<String, Object> rankInfo = permissionsManager.getPlayerRankInfo(offlinePlayer.getUniqueId());
-            if (rankInfo != null) {
-                // Die gesamte rankInfo Map in die playerData Map einfügen
-                playerData.put("rank", rankInfo.get("displayName"));
-                playerData.put("rankInfo", rankInfo);
-            } else {
-                playerData.put("rank", "Default");
+        // Cache prüfen (unter Last auch abgelaufene Einträge)
+        PlayerDataCache.CacheEntry cached = playerDataCache.getCachedEntry(username, tickMonitor.getStaleToleranceMillis());
+        if (cached != null && cached.getResolvedProviders().containsAll(requiredProviders)) {
+            if (!playerDataCache.isFresh(cached)) {
+                AccessLog.markCacheResult(AccessLog.CACHE_STALE);
+                return markStale(PlayerFieldResolver.project(cached.getData(), fields), cached);
             }
-        } else {
-            // Fallback auf einfaches Rang-Format, wenn PermissionsManager nicht verfügbar
-            String rank = "Default";
-            try {
-                if (luckPerms != null) {
-                    User user = luckPerms.getUserManager().loadUser(offlinePlayer.getUniqueId()).join();
-                    if (user != null) {
-                        String primaryGroup = user.getPrimaryGroup();
-                        rank = primaryGroup.substring(0, 1).toUpperCase() + primaryGroup.substring(1);
-                    }
-                }
-            } catch (Exception e) {
-                getLogger().warning("Failed to get LuckPerms data for " + username + ": " + e.getMessage());
-            }
-            playerData.put("rank", rank);
+            AccessLog.markCacheResult(AccessLog.CACHE_HIT);
+            return PlayerFieldResolver.project(cached.getData(), fields);
         }
+        AccessLog.markCacheResult(AccessLog.CACHE_MISS);
         
-        // Account-Alter in Tagen berechnen
-        if (offlinePlayer.hasPlayedBefore()) {
-            long firstPlayed = offlinePlayer.getFirstPlayed();
-            long currentTime = System.currentTimeMillis();
-            long accountAgeDays = (currentTime - firstPlayed) / (1000 * 60 * 60 * 24);
-            playerData.put("accountAge", accountAgeDays);
-            playerData.put("firstJoined", firstPlayed);
+        // Spieler suchen (bei einem teilweisen Cache-Treffer ist die UUID bereits bekannt)
+        OfflinePlayer offlinePlayer;
+        if (cached != null && cached.getData().get("uuid") instanceof String) {
+            offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString((String) cached.getData().get("uuid")));
         } else {
-            playerData.put("accountAge", 0);
-            playerData.put("firstJoined", 0);
+            offlinePlayer = Bukkit.getOfflinePlayer(username);
+            if (offlinePlayer == null || (!offlinePlayer.hasPlayedBefore() && !offlinePlayer.isOnline())) {
+                return null;
+            }
         }
         
-        // Zeitzone und zusätzliche Informationen für Online-Spieler
-        if (offlinePlayer.isOnline()) {
-            Player player = offlinePlayer.getPlayer();
-            if (player != null) {
-                playerData.put("displayName", player.getDisplayName());
-                
-                // Zeitzone vom TimeZoneManager abrufen
-                String timezone = timeZoneManager != null ? 
-                        timeZoneManager.getPlayerTimeZone(player.getUniqueId()) : 
-                        config.getString("player-data.default-timezone");
-                playerData.put("timezone", timezone);
-                
-                // AFK-Status von Essentials, falls verfügbar
-                if (essentialsEnabled) {
-                    try {
-                        com.earth2me.essentials.Essentials essentials = (com.earth2me.essentials.Essentials) 
-                            Bukkit.getPluginManager().getPlugin("Essentials");
-                        if (essentials != null) {
-                            boolean isAfk = essentials.getUser(player.getUniqueId()).isAfk();
-                            playerData.put("afk", isAfk);
-                        }
-                    } catch (Exception e) {
-                        getLogger().warning("Failed to get AFK status: " + e.getMessage());
-                    }
-                }
-                
-                // Spielerposition hinzufügen
-                if (config.getBoolean("player-data.include-stats")) {
-                    Map<String, Object> location = new HashMap<>();
-                    location.put("world", player.getWorld().getName());
-                    location.put("x", player.getLocation().getBlockX());
-                    location.put("y", player.getLocation().getBlockY());
-                    location.put("z", player.getLocation().getBlockZ());
-                    playerData.put("location", location);
-                }
-            }
+        // Nur die noch fehlenden Felder ermitteln
+        Map<String, Object> playerData = new HashMap<>();
+        Set<String> resolvedProviders = new HashSet<>();
+        long timestamp = System.currentTimeMillis();
+        boolean persisted = false;
+        if (cached != null) {
+            playerData.putAll(cached.getData());
+            resolvedProviders.addAll(cached.getResolvedProviders());
+            timestamp = cached.getTimestamp();
+            persisted = cached.isPersisted();
         }
         
-        // Avatar-URL hinzufügen (nutzt Minecraft-Avatar-Dienst)
-        playerData.put("avatarUrl", "https://mc-heads.net/avatar/" + username);
+        Set<String> missingProviders = new HashSet<>(requiredProviders);
+        missingProviders.removeAll(resolvedProviders);
+        long resolveStart = System.nanoTime();
+        fieldResolver.resolve(offlinePlayer, missingProviders, playerData);
+        tickMonitor.recordRequestWork(resolveStart);
+        resolvedProviders.addAll(missingProviders);
         
         // Daten cachen
-        playerDataCache.cacheData(username, playerData);
+        playerDataCache.cacheData(username, playerData, resolvedProviders, timestamp, persisted);
         
-        return playerData;
+        // Nur die fehlenden Felder wurden neu ermittelt, der Rest stammt aus einem abgelaufenen Eintrag
+        if (cached != null && !playerDataCache.isFresh(cached)) {
+            return markStale(PlayerFieldResolver.project(playerData, fields), cached);
+        }
+        return PlayerFieldResolver.project(playerData, fields);
+    }
+    
+    private Map<String, Object> markStale(Map<String, Object> data, PlayerDataCache.CacheEntry cached) {
+        tickMonitor.recordStaleResponse();
+        Map<String, Object> response = new HashMap<>(data);
+        response.put("stale", true);
+        response.put("cachedAt", cached.getTimestamp());
+        return response;
     }
     
     public FileConfiguration getPluginConfig() {
         return config;
     }
     
+    public boolean isEssentialsEnabled() {
+        return essentialsEnabled;
+    }
+    
     public LuckPerms getLuckPerms() {
         return luckPerms;
     }
@@ -288,4 +499,46 @@ public class DiscordPlayerInfo extends JavaPlugin {
     public PermissionsManager getPermissionsManager() {
         return permissionsManager;
     }
+    
+    public OnlineRoster getOnlineRoster() {
+        return onlineRoster;
+    }
+    
+    public FederationManager getFederationManager() {
+        return federationManager;
+    }
+    
+    /**
+     * Gibt an, ob alle asynchronen Startschritte abgeschlossen sind
+     * 
+     * @return true, sobald die API vollständig verfügbar ist
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Gibt den räumlichen Index zurück
+     * 
+     * @return Index oder null, wenn player-data.include-stats beim Start deaktiviert war
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+    
+    public AccessLog getAccessLog() {
+        return accessLog;
+    }
+    
+    public ActivityLog getActivityLog() {
+        return activityLog;
+    }
+    
+    public ChangeJournal getChangeJournal() {
+        return changeJournal;
+    }
+    
+    public TickMonitor getTickMonitor() {
+        return tickMonitor;
+    }
 }
@@ -0,0 +1,37 @@
+package de.springisfm.discordplayerinfo;
+
+import net.ess3.api.events.AfkStatusChangeEvent;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Listener für Essentials-Events
+ * Wird nur registriert, wenn Essentials installiert ist.
+ */
+public class EssentialsListener implements Listener {
+    private final DiscordPlayerInfo plugin;
+    
+    public EssentialsListener(DiscordPlayerInfo plugin) {
+        this.plugin = plugin;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onAfkStatusChange(AfkStatusChangeEvent event) {
+        Player player = event.getAffected().getBase();
+        if (player == null) return;
+        
+        long start = System.nanoTime();
+        
+        // AFK-Status im Cache ist nun veraltet
+        plugin.getPlayerDataCache().invalidateCache(player.getName());
+        plugin.getChangeJournal().record(player.getUniqueId(), ChangeJournal.AFK);
+        
+        if (plugin.getActivityLog() != null) {
+            plugin.getActivityLog().recordAfk(player.getUniqueId(), event.getValue());
+        }
+        
+        plugin.getTickMonitor().recordMainThreadWork(start);
+    }
+}
@@ -0,0 +1,409 @@
+package de.springisfm.discordplayerinfo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Föderationsmodus für mehrere Server hinter einem Proxy
+ * Diese Instanz fragt die konfigurierten Peer-Instanzen parallel über deren
+ * /api/players Endpunkt ab und führt die Ergebnisse mit der lokalen Online-Liste
+ * zu einer netzwerkweiten Liste inklusive Aktualitätsinformationen pro Node zusammen.
+ */
+public class FederationManager {
+    private static final Gson GSON = new GsonBuilder()
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+            .create();
+    private static final Type RESPONSE_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+    
+    private final DiscordPlayerInfo plugin;
+    private final String nodeName;
+    private final List<Peer> peers;
+    private final long timeoutMillis;
+    private final long refreshIntervalMillis;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Map<String, PeerState> peerStates;
+    
+    private volatile NetworkSnapshot snapshot;
+    private CompletableFuture<NetworkSnapshot> inFlight;
+    private long version = 0;
+    
+    public FederationManager(DiscordPlayerInfo plugin, String nodeName, List<Peer> peers,
+                             long timeoutMillis, long refreshIntervalMillis) {
+        this.plugin = plugin;
+        this.nodeName = nodeName;
+        this.peers = Collections.unmodifiableList(new ArrayList<>(peers));
+        this.timeoutMillis = timeoutMillis;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, Math.min(peers.size(), 8)), runnable -> {
+            Thread thread = new Thread(runnable, "DiscordPlayerInfo-Federation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
+        this.peerStates = new HashMap<>();
+    }
+    
+    /**
+     * Erstellt den FederationManager aus der Plugin-Konfiguration
+     * 
+     * @param plugin Plugin-Instanz
+     * @return FederationManager mit den konfigurierten Peers
+     */
+    public static FederationManager fromConfig(DiscordPlayerInfo plugin) {
+        List<Peer> peers = new ArrayList<>();
+        for (Map<?, ?> entry : plugin.getConfig().getMapList("federation.peers")) {
+            Object name = entry.get("name");
+            Object url = entry.get("url");
+            if (name == null || url == null) {
+                plugin.getLogger().warning("Ignoring federation peer without name or url: " + entry);
+                continue;
+            }
+            Object apiKey = entry.get("api-key");
+            peers.add(new Peer(name.toString(), url.toString(), apiKey != null ? apiKey.toString() : ""));
+        }
+        
+        return new FederationManager(plugin,
+                plugin.getConfig().getString("federation.node-name", "local"),
+                peers,
+                plugin.getConfig().getLong("federation.timeout-ms", 2000),
+                plugin.getConfig().getLong("federation.refresh-interval-ms", 5000));
+    }
+    
+    /**
+     * Gibt die netzwerkweite Spielerliste zurück. Ist der letzte Stand älter als das
+     * Aktualisierungsintervall, werden die Peers erneut abgefragt; schlägt das fehl,
+     * wird der letzte bekannte Stand geliefert.
+     * 
+     * @return Aktuelle oder zuletzt bekannte Netzwerkübersicht
+     */
+    public NetworkSnapshot getSnapshot() {
+        NetworkSnapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.generatedAt < refreshIntervalMillis) {
+            return current;
+        }
+        
+        try {
+            return refresh().get(timeoutMillis + 500, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Federation refresh failed", e);
+        }
+        return snapshot != null ? snapshot : merge();
+    }
+    
+    /**
+     * Fragt alle Peers parallel ab. Laufende Abfragen werden von weiteren
+     * Aufrufern mitgenutzt, statt erneut gestartet zu werden.
+     * 
+     * @return Future mit der neuen Netzwerkübersicht
+     */
+    public synchronized CompletableFuture<NetworkSnapshot> refresh() {
+        if (inFlight != null) {
+            return inFlight;
+        }
+        
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (Peer peer : peers) {
+            requests.add(fetchPeer(peer).thenAccept(this::updatePeerState));
+        }
+        
+        CompletableFuture<NetworkSnapshot> future = CompletableFuture
+                .allOf(requests.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    NetworkSnapshot merged = merge();
+                    snapshot = merged;
+                    return merged;
+                });
+        inFlight = future;
+        future.whenComplete((result, error) -> {
+            synchronized (FederationManager.this) {
+                inFlight = null;
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * Beendet den HTTP-Client und dessen Threads
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Gibt die Anzahl der konfigurierten Peers zurück
+     * 
+     * @return Anzahl der Peers
+     */
+    public int getPeerCount() {
+        return peers.size();
+    }
+    
+    /**
+     * Fragt den /api/players Endpunkt eines Peers ab. Fehler werden nicht weitergereicht,
+     * sondern als fehlgeschlagener Zustand des Peers zurückgegeben.
+     */
+    private CompletableFuture<PeerState> fetchPeer(Peer peer) {
+        long startTime = System.currentTimeMillis();
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(peer.url + "/api/players"))
+                    .timeout(Duration.ofMillis(timeoutMillis))
+                    .GET();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(PeerState.failed(peer, startTime, "Invalid URL: " + e.getMessage()));
+        }
+        if (!peer.apiKey.isEmpty()) {
+            request.header("Authorization", "Bearer " + peer.apiKey);
+        }
+        
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString())
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        return PeerState.failed(peer, startTime, "HTTP " + response.statusCode());
+                    }
+                    Map<String, Object> body = GSON.fromJson(response.body(), RESPONSE_TYPE);
+                    return PeerState.fromResponse(peer, startTime, body);
+                })
+                .exceptionally(error -> {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    return PeerState.failed(peer, startTime, cause.getClass().getSimpleName()
+                            + (cause.getMessage() != null ? ": " + cause.getMessage() : ""));
+                });
+    }
+    
+    /**
+     * Übernimmt den neuen Zustand eines Peers. Bei einem Fehler bleibt die zuletzt
+     * erfolgreich abgerufene Spielerliste erhalten und wird als veraltet markiert.
+     */
+    private synchronized void updatePeerState(PeerState state) {
+        PeerState previous = peerStates.get(state.peer.name);
+        if (!state.ok && previous != null && previous.lastSuccess > 0) {
+            state = previous.withFailure(state);
+        }
+        peerStates.put(state.peer.name, state);
+        
+        if (!state.ok && plugin.getConfig().getBoolean("debug.enabled")) {
+            plugin.getLogger().info("Federation peer " + state.peer.name + " unavailable: " + state.error);
+        }
+    }
+    
+    /**
+     * Führt die lokale Online-Liste und die Listen aller Peers zusammen
+     */
+    private synchronized NetworkSnapshot merge() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> nodes = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> players = new LinkedHashMap<>();
+        Map<String, String> nameIndex = new HashMap<>();
+        int online = 0;
+        int max = 0;
+        
+        OnlineRoster.Snapshot local = plugin.getOnlineRoster().getSnapshot();
+        nodes.put(nodeName, nodeInfo(true, true, local.getPlayers().size(), local.getMaxPlayers(), now, now, 0, null));
+        online += local.getPlayers().size();
+        max += local.getMaxPlayers();
+        addPlayers(players, nameIndex, local.getPlayers(), nodeName);
+        
+        for (Peer peer : peers) {
+            PeerState state = peerStates.get(peer.name);
+            if (state == null) {
+                nodes.put(peer.name, nodeInfo(false, false, 0, 0, 0, now, 0, "Not queried yet"));
+                continue;
+            }
+            nodes.put(peer.name, nodeInfo(false, state.ok, state.players.size(), state.max,
+                    state.lastSuccess, now, state.latencyMillis, state.error));
+            online += state.players.size();
+            max += state.max;
+            addPlayers(players, nameIndex, state.players, peer.name);
+        }
+        
+        return new NetworkSnapshot(++version, now, online, max, nodes, players, nameIndex);
+    }
+    
+    private static void addPlayers(Map<String, Map<String, Object>> players, Map<String, String> nameIndex,
+                                   Map<String, String> source, String node) {
+        for (Map.Entry<String, String> entry : source.entrySet()) {
+            Map<String, Object> player = new LinkedHashMap<>();
+            player.put("name", entry.getValue());
+            player.put("node", node);
+            players.put(entry.getKey(), player);
+            if (entry.getValue() != null) {
+                nameIndex.put(entry.getValue().toLowerCase(), entry.getKey());
+            }
+        }
+    }
+    
+    private static Map<String, Object> nodeInfo(boolean local, boolean ok, int online, int max,
+                                                long fetchedAt, long now, long latencyMillis, String error) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("local", local);
+        node.put("ok", ok);
+        node.put("online", online);
+        node.put("max", max);
+        node.put("fetchedAt", fetchedAt);
+        node.put("ageMs", fetchedAt > 0 ? now - fetchedAt : -1);
+        node.put("latencyMs", latencyMillis);
+        if (error != null) {
+            node.put("error", error);
+        }
+        return node;
+    }
+    
+    /**
+     * Konfigurierte Peer-Instanz
+     */
+    public static class Peer {
+        final String name;
+        final String url;
+        final String apiKey;
+        
+        public Peer(String name, String url, String apiKey) {
+            this.name = name;
+            this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+            this.apiKey = apiKey;
+        }
+    }
+    
+    /**
+     * Zuletzt bekannter Zustand eines Peers
+     */
+    private static class PeerState {
+        final Peer peer;
+        final boolean ok;
+        final String error;
+        final int max;
+        final Map<String, String> players;
+        final long lastSuccess;
+        final long latencyMillis;
+        
+        PeerState(Peer peer, boolean ok, String error, int max, Map<String, String> players,
+                  long lastSuccess, long latencyMillis) {
+            this.peer = peer;
+            this.ok = ok;
+            this.error = error;
+            this.max = max;
+            this.players = players;
+            this.lastSuccess = lastSuccess;
+            this.latencyMillis = latencyMillis;
+        }
+        
+        static PeerState fromResponse(Peer peer, long startTime, Map<String, Object> body) {
+            Map<String, String> players = new LinkedHashMap<>();
+            Object list = body != null ? body.get("players") : null;
+            if (list instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) list).entrySet()) {
+                    players.put(entry.getKey().toString(), entry.getValue() != null ? entry.getValue().toString() : null);
+                }
+            }
+            Object max = body != null ? body.get("max") : null;
+            long now = System.currentTimeMillis();
+            return new PeerState(peer, true, null, max instanceof Number ? ((Number) max).intValue() : 0,
+                    players, now, now - startTime);
+        }
+        
+        static PeerState failed(Peer peer, long startTime, String error) {
+            return new PeerState(peer, false, error, 0, Collections.emptyMap(), 0,
+                    System.currentTimeMillis() - startTime);
+        }
+        
+        PeerState withFailure(PeerState failure) {
+            return new PeerState(peer, false, failure.error, max, players, lastSuccess, failure.latencyMillis);
+        }
+    }
+    
+    /**
+     * Unveränderliche, netzwerkweite Übersicht über alle Nodes und Spieler
+     */
+    public static class NetworkSnapshot {
+        private final long version;
+        private final long generatedAt;
+        private final int online;
+        private final int max;
+        private final Map<String, Object> nodes;
+        private final Map<String, Map<String, Object>> players;
+        private final Map<String, String> nameIndex;
+        
+        NetworkSnapshot(long version, long generatedAt, int online, int max, Map<String, Object> nodes,
+                        Map<String, Map<String, Object>> players, Map<String, String> nameIndex) {
+            this.version = version;
+            this.generatedAt = generatedAt;
+            this.online = online;
+            this.max = max;
+            this.nodes = Collections.unmodifiableMap(nodes);
+            this.players = Collections.unmodifiableMap(players);
+            this.nameIndex = Collections.unmodifiableMap(nameIndex);
+        }
+        
+        /**
+         * Erstellt die Antwort für /api/network/players
+         * 
+         * @return Antwort-Map
+         */
+        public Map<String, Object> toResponse() {
+            Map<String, Object> response = new HashMap<>();
+            response.put("version", version);
+            response.put("generatedAt", generatedAt);
+            response.put("online", online);
+            response.put("max", max);
+            response.put("nodes", nodes);
+            
+            // Gültige UUIDs als UUID-Objekte übergeben, damit CBOR/MessagePack sie binär kodieren
+            Map<Object, Map<String, Object>> byUuid = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, Object>> entry : players.entrySet()) {
+                String key = entry.getKey();
+                byUuid.put(BinaryEncoder.isUuid(key) ? UUID.fromString(key) : key, entry.getValue());
+            }
+            response.put("players", byUuid);
+            return response;
+        }
+        
+        /**
+         * Sucht einen Spieler netzwerkweit anhand seines Namens
+         * 
+         * @param username Spielername (Groß-/Kleinschreibung egal)
+         * @return Antwort-Map mit UUID, Node und Aktualität oder null, wenn nicht online
+         */
+        public Map<String, Object> findPlayer(String username) {
+            String uuid = nameIndex.get(username.toLowerCase());
+            if (uuid == null) return null;
+            
+            Map<String, Object> player = players.get(uuid);
+            String node = (String) player.get("node");
+            Map<String, Object> response = new HashMap<>();
+            response.put("username", player.get("name"));
+            response.put("uuid", uuid);
+            response.put("node", node);
+            response.put("nodeInfo", nodes.get(node));
+            response.put("generatedAt", generatedAt);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package de.springisfm.discordplayerinfo;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Liste der Online-Spieler, die inkrementell über Join-/Quit-Events gepflegt wird
+ * Jede Änderung erzeugt einen neuen, unveränderlichen Snapshot mit eigener Version,
+ * sodass API-Anfragen nur einen volatile-Read benötigen. Unter Last werden Änderungen
+ * gesammelt und erst mit flush() als gemeinsamer Snapshot veröffentlicht.
+ */
+public class OnlineRoster {
+    private volatile Snapshot snapshot = new Snapshot(0, Collections.emptyMap(), 0, System.currentTimeMillis());
+    private final Map<String, String> players = new LinkedHashMap<>();
+    private boolean deferred;
+    private volatile boolean dirty;
+    
+    /**
+     * Baut die Liste vollständig aus den aktuell verbundenen Spielern neu auf
+     * (z.B. nach einem Reload des Plugins)
+     */
+    public synchronized void rebuild() {
+        players.clear();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            players.put(player.getUniqueId().toString(), player.getName());
+        }
+        publish();
+    }
+    
+    /**
+     * Fügt einen Spieler hinzu
+     * 
+     * @param player Der beigetretene Spieler
+     */
+    public synchronized void addPlayer(Player player) {
+        players.put(player.getUniqueId().toString(), player.getName());
+        changed();
+    }
+    
+    /**
+     * Entfernt einen Spieler
+     * 
+     * @param playerUUID UUID des Spielers, der den Server verlassen hat
+     */
+    public synchronized void removePlayer(UUID playerUUID) {
+        if (players.remove(playerUUID.toString()) == null) return;
+        changed();
+    }
+    
+    /**
+     * Schaltet das Sammeln von Änderungen ein oder aus. Beim Ausschalten werden
+     * gesammelte Änderungen sofort veröffentlicht.
+     * 
+     * @param deferred true, wenn Änderungen erst mit flush() sichtbar werden sollen
+     */
+    public synchronized void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+        if (!deferred) {
+            flush();
+        }
+    }
+    
+    /**
+     * Veröffentlicht gesammelte Änderungen als neuen Snapshot
+     * 
+     * @return true, wenn es Änderungen gab
+     */
+    public synchronized boolean flush() {
+        if (!dirty) return false;
+        publish();
+        return true;
+    }
+    
+    /**
+     * Gibt den aktuellen Snapshot zurück
+     * 
+     * @return Unveränderlicher Snapshot der Online-Spieler
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Gibt an, ob gesammelte Änderungen noch nicht veröffentlicht wurden, der aktuelle
+     * Snapshot also veraltet ist
+     * 
+     * @return true, wenn Änderungen auf flush() warten
+     */
+    public boolean hasPendingChanges() {
+        return dirty;
+    }
+    
+    private void changed() {
+        if (deferred) {
+            dirty = true;
+        } else {
+            publish();
+        }
+    }
+    
+    private void publish() {
+        dirty = false;
+        snapshot = new Snapshot(snapshot.version + 1, Collections.unmodifiableMap(new LinkedHashMap<>(players)), Bukkit.getMaxPlayers(),
+                System.currentTimeMillis());
+    }
+    
+    /**
+     * Unveränderlicher Stand der Online-Spieler (UUID -> Name)
+     */
+    public static class Snapshot {
+        private final long version;
+        private final Map<String, String> players;
+        private final int maxPlayers;
+        private final long publishedAt;
+        private final AtomicReferenceArray<byte[]> encoded = new AtomicReferenceArray<>(ResponseFormat.values().length);
+        private final AtomicReferenceArray<byte[]> encodedStale = new AtomicReferenceArray<>(ResponseFormat.values().length);
+        
+        Snapshot(long version, Map<String, String> players, int maxPlayers, long publishedAt) {
+            this.version = version;
+            this.players = players;
+            this.maxPlayers = maxPlayers;
+            this.publishedAt = publishedAt;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public Map<String, String> getPlayers() {
+            return players;
+        }
+        
+        public int getMaxPlayers() {
+            return maxPlayers;
+        }
+        
+        public long getPublishedAt() {
+            return publishedAt;
+        }
+        
+        /**
+         * Gibt die Antwort für /api/players im gewünschten Format zurück. Die Bytes werden
+         * nur einmal pro Version, Format und Kennzeichnung erzeugt und danach wiederverwendet.
+         * 
+         * @param format Antwortformat
+         * @param stale true, wenn die Antwort als veraltet gekennzeichnet werden soll
+         * @return Kodierte Antwort (nicht verändern)
+         */
+        public byte[] getEncoded(ResponseFormat format, boolean stale) {
+            AtomicReferenceArray<byte[]> cache = stale ? encodedStale : encoded;
+            byte[] bytes = cache.get(format.ordinal());
+            if (bytes == null) {
+                bytes = format.encode(toResponse(stale));
+                cache.set(format.ordinal(), bytes);
+            }
+            return bytes;
+        }
+        
+        /**
+         * Erstellt die Antwort-Map im Format des /api/players Endpunkts
+         * 
+         * @return Antwort-Map
+         */
+        public Map<String, Object> toResponse() {
+            return toResponse(false);
+        }
+        
+        /**
+         * Erstellt die Antwort-Map im Format des /api/players Endpunkts
+         * 
+         * @param stale true, um "stale" und den Zeitpunkt der Veröffentlichung ("publishedAt") hinzuzufügen
+         * @return Antwort-Map
+         */
+        public Map<String, Object> toResponse(boolean stale) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("online", players.size());
+            response.put("max", maxPlayers);
+            if (stale) {
+                response.put("stale", true);
+                response.put("publishedAt", publishedAt);
+            }
+            
+            // Spielerliste nur hinzufügen, wenn es Online-Spieler gibt. Die Schlüssel als UUID-Objekte
+            // übergeben, damit CBOR/MessagePack sie binär kodieren (JSON bleibt unverändert).
+            if (!players.isEmpty()) {
+                Map<UUID, String> byUuid = new LinkedHashMap<>();
+                for (Map.Entry<String, String> entry : players.entrySet()) {
+                    byUuid.put(UUID.fromString(entry.getKey()), entry.getValue());
+                }
+                response.put("players", byUuid);
+            }
+            return response;
+        }
+    }
+}
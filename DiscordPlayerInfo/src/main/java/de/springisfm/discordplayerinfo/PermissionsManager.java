@@ -1,15 +1,26 @@
 package de.springisfm.discordplayerinfo;
 
 import net.luckperms.api.LuckPerms;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.event.user.UserUnloadEvent;
 import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
 import net.luckperms.api.model.group.Group;
 import net.luckperms.api.node.NodeType;
 import net.luckperms.api.node.types.InheritanceNode;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
@@ -21,10 +32,90 @@ import java.util.stream.Collectors;
 public class PermissionsManager {
     private final DiscordPlayerInfo plugin;
     private final LuckPerms luckPerms;
+    private final Map<UUID, String> rankSignatures;
+    private final Map<UUID, PermissionResults> permissionResults;
+    private final long permissionCacheMillis;
     
     public PermissionsManager(DiscordPlayerInfo plugin, LuckPerms luckPerms) {
         this.plugin = plugin;
         this.luckPerms = luckPerms;
+        this.rankSignatures = new ConcurrentHashMap<>();
+        this.permissionResults = new ConcurrentHashMap<>();
+        this.permissionCacheMillis = plugin.getConfig().getLong("permissions.cache-duration", 5) * 1000L;
+    }
+    
+    /**
+     * Registriert sich beim LuckPerms-EventBus, um Rang- und Berechtigungsänderungen zu erkennen
+     */
+    public void subscribeEvents() {
+        EventBus eventBus = luckPerms.getEventBus();
+        eventBus.subscribe(plugin, UserDataRecalculateEvent.class, this::onUserDataRecalculate);
+        // Entladene User (z.B. nach dem Verlassen) nicht weiter vorhalten
+        eventBus.subscribe(plugin, UserUnloadEvent.class, event -> {
+            rankSignatures.remove(event.getUser().getUniqueId());
+            permissionResults.remove(event.getUser().getUniqueId());
+        });
+        // Geänderte Gruppen können die Berechtigungen beliebiger Spieler betreffen
+        eventBus.subscribe(plugin, GroupDataRecalculateEvent.class, event -> permissionResults.clear());
+    }
+    
+    /**
+     * Vergleicht die Gruppen eines neu berechneten Users mit dem zuletzt bekannten Stand
+     * und meldet Änderungen an Cache und Änderungsjournal. Ist noch kein Stand bekannt
+     * (erstes Laden des Users), wird mit dem Rang in den gecachten Spielerdaten verglichen.
+     * 
+     * @param event LuckPerms-Event
+     */
+    private void onUserDataRecalculate(UserDataRecalculateEvent event) {
+        User user = event.getUser();
+        permissionResults.remove(user.getUniqueId());
+        
+        String signature = rankSignature(user);
+        String previous = rankSignatures.put(user.getUniqueId(), signature);
+        if (previous == null) {
+            previous = cachedRankSignature(user.getUsername());
+        }
+        
+        if (previous != null && !previous.equals(signature)) {
+            plugin.getPlayerDataCache().invalidateCache(user.getUsername());
+            plugin.getChangeJournal().record(user.getUniqueId(), ChangeJournal.RANK);
+        }
+    }
+    
+    /**
+     * Erstellt eine Signatur aus primärer Gruppe und allen direkten Gruppen eines Users
+     * 
+     * @param user LuckPerms-User
+     * @return Vergleichbare Signatur
+     */
+    private String rankSignature(User user) {
+        return user.getPrimaryGroup() + "|" + user.getNodes().stream()
+                .filter(NodeType.INHERITANCE::matches)
+                .map(NodeType.INHERITANCE::cast)
+                .map(InheritanceNode::getGroupName)
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+    
+    /**
+     * Erstellt die Signatur des Rangs, der zuletzt über die API ausgeliefert wurde
+     * 
+     * @param username Spielername
+     * @return Signatur oder null, wenn keine Rangdaten gecacht sind
+     */
+    @SuppressWarnings("unchecked")
+    private String cachedRankSignature(String username) {
+        Map<String, Object> data = plugin.getPlayerDataCache().peekData(username);
+        if (data == null || !(data.get("rankInfo") instanceof Map)) return null;
+        
+        Map<String, Object> rankInfo = (Map<String, Object>) data.get("rankInfo");
+        Object groups = rankInfo.get("allGroups");
+        if (!(groups instanceof Collection)) return null;
+        
+        return rankInfo.get("primaryGroup") + "|" + ((Collection<Object>) groups).stream()
+                .map(String::valueOf)
+                .sorted()
+                .collect(Collectors.joining(","));
     }
     
     /**
@@ -49,6 +140,9 @@ public class PermissionsManager {
                 return null;
             }
             
+            // Zuletzt bekannten Rang merken, um spätere Änderungen zu erkennen
+            rankSignatures.putIfAbsent(playerUUID, rankSignature(user));
+            
             // Primäre Gruppe und Details
             String primaryGroup = user.getPrimaryGroup();
             rankInfo.put("primaryGroup", primaryGroup);
@@ -104,12 +198,8 @@ public class PermissionsManager {
         }
         
         try {
-            User user = luckPerms.getUserManager().loadUser(playerUUID).get();
-            if (user == null) {
-                return false;
-            }
-            
-            return user.getCachedData().getPermissionData().checkPermission(permission).asBoolean();
+            boolean[] results = checkUserPermissions(playerUUID, Collections.singletonList(permission)).get();
+            return results != null && results[0];
         } catch (InterruptedException | ExecutionException e) {
             plugin.getLogger().log(Level.WARNING, 
                     "Fehler beim Überprüfen der Berechtigung " + permission + 
@@ -119,6 +209,94 @@ public class PermissionsManager {
         }
     }
     
+    /**
+     * Ermittelt die UUID eines Spielers aus einer UUID oder einem Spielernamen
+     * Geladene (z.B. online) Spieler werden direkt aufgelöst, sonst fragt LuckPerms seinen Speicher.
+     * 
+     * @param player UUID oder Spielername
+     * @return Future mit der UUID oder null, wenn LuckPerms den Spieler nicht kennt
+     */
+    public CompletableFuture<UUID> lookupUniqueId(String player) {
+        if (player.length() == 36) {
+            try {
+                return CompletableFuture.completedFuture(UUID.fromString(player));
+            } catch (IllegalArgumentException e) {
+                // Kein UUID-Format, als Name behandeln
+            }
+        }
+        
+        User loaded = luckPerms.getUserManager().getUser(player);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded.getUniqueId());
+        }
+        return luckPerms.getUserManager().lookupUniqueId(player);
+    }
+    
+    /**
+     * Prüft mehrere Berechtigungen für mehrere Spieler
+     * Jeder User wird höchstens einmal geladen, die Prüfung selbst läuft über die
+     * CachedPermissionData von LuckPerms. Ergebnisse werden kurz zwischengespeichert und
+     * bei Neuberechnungen von Usern oder Gruppen verworfen.
+     * 
+     * @param players UUIDs der Spieler
+     * @param permissions Zu prüfende Berechtigungen
+     * @return Future mit den Ergebnissen je Spieler (in der Reihenfolge der Berechtigungen, null für unbekannte User)
+     */
+    public CompletableFuture<Map<UUID, boolean[]>> checkPermissions(Collection<UUID> players, List<String> permissions) {
+        // Abgelaufene Einträge entfernen, damit der Cache nicht mit jedem angefragten Spieler wächst
+        long now = System.currentTimeMillis();
+        permissionResults.values().removeIf(results -> now - results.created >= permissionCacheMillis);
+        
+        Map<UUID, CompletableFuture<boolean[]>> futures = new LinkedHashMap<>();
+        for (UUID playerUUID : players) {
+            futures.computeIfAbsent(playerUUID, uuid -> checkUserPermissions(uuid, permissions));
+        }
+        
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<UUID, boolean[]> results = new LinkedHashMap<>();
+            futures.forEach((uuid, future) -> results.put(uuid, future.join()));
+            return results;
+        });
+    }
+    
+    /**
+     * Prüft mehrere Berechtigungen für einen Spieler, bevorzugt aus dem Ergebnis-Cache
+     * 
+     * @param playerUUID UUID des Spielers
+     * @param permissions Zu prüfende Berechtigungen
+     * @return Future mit den Ergebnissen oder null, wenn LuckPerms den User nicht kennt
+     */
+    private CompletableFuture<boolean[]> checkUserPermissions(UUID playerUUID, List<String> permissions) {
+        long now = System.currentTimeMillis();
+        PermissionResults cached = permissionResults.compute(playerUUID, (uuid, results) ->
+                results != null && now - results.created < permissionCacheMillis ? results : new PermissionResults(now));
+        
+        boolean[] results = cached.lookup(permissions);
+        if (results != null) {
+            return CompletableFuture.completedFuture(results);
+        }
+        
+        // Geladene User (z.B. online) direkt verwenden, sonst einmalig aus dem Speicher laden
+        UserManager userManager = luckPerms.getUserManager();
+        User loaded = userManager.getUser(playerUUID);
+        CompletableFuture<User> userFuture = loaded != null ? CompletableFuture.completedFuture(loaded) : userManager.loadUser(playerUUID);
+        
+        return userFuture.thenApply(user -> {
+            if (user == null) {
+                return null;
+            }
+            
+            // Wird der Eintrag zwischenzeitlich verworfen, landen die Ergebnisse nur in der alten Instanz
+            CachedPermissionData permissionData = user.getCachedData().getPermissionData();
+            boolean[] checked = new boolean[permissions.size()];
+            for (int i = 0; i < checked.length; i++) {
+                checked[i] = cached.results.computeIfAbsent(permissions.get(i),
+                        permission -> permissionData.checkPermission(permission).asBoolean());
+            }
+            return checked;
+        });
+    }
+    
     /**
      * Formatiert einen Gruppennamen schöner für die Anzeige
      * 
@@ -140,4 +318,30 @@ public class PermissionsManager {
             return groupName;
         }
     }
+    
+    /**
+     * Zwischengespeicherte Prüfergebnisse eines Spielers
+     */
+    private static class PermissionResults {
+        private final long created;
+        private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+        
+        PermissionResults(long created) {
+            this.created = created;
+        }
+        
+        /**
+         * @param permissions Zu prüfende Berechtigungen
+         * @return Ergebnisse oder null, wenn mindestens eine Berechtigung noch nicht geprüft wurde
+         */
+        boolean[] lookup(List<String> permissions) {
+            boolean[] values = new boolean[permissions.size()];
+            for (int i = 0; i < values.length; i++) {
+                Boolean value = results.get(permissions.get(i));
+                if (value == null) return null;
+                values[i] = value;
+            }
+            return values;
+        }
+    }
 }
@@ -2,22 +2,39 @@ package de.springisfm.discordplayerinfo;
 
 import org.bukkit.configuration.file.FileConfiguration;
 
+import java.io.File;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 /**
  * Cache-System für Spielerdaten, um wiederholte Datenbankabfragen zu vermeiden
+ * Zweistufig: häufig genutzte Einträge liegen im Speicher, Daten von Offline-Spielern
+ * werden zusätzlich auf der Festplatte gehalten und überleben so einen Neustart.
+ * Die Speicherstufe verdrängt den am längsten nicht genutzten Eintrag (LRU).
+ * Von der Festplatte geladene Einträge gelten für die Dauer des Festplatten-Caches, da sich
+ * Daten von Offline-Spielern selten ändern und Änderungen (Rang, Zeitzone, Join) den Eintrag
+ * ohnehin verwerfen.
  */
 public class PlayerDataCache {
     private final DiscordPlayerInfo plugin;
-    private final Map<String, CacheEntry> cache;
+    // Zugriffsreihenfolge: der erste Eintrag wurde am längsten nicht genutzt (Zugriff nur unter Sperre auf cache)
+    private final LinkedHashMap<String, CacheEntry> cache;
+    private final PlayerDiskCache diskCache;
     private int cacheDuration; // Seconds
+    private int diskCacheDuration; // Seconds
+    private int maxMemoryEntries;
     
     public PlayerDataCache(DiscordPlayerInfo plugin) {
         this.plugin = plugin;
-        this.cache = new ConcurrentHashMap<>();
-        this.cacheDuration = plugin.getConfig().getInt("player-data.cache-duration", 300);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.diskCache = plugin.getConfig().getBoolean("player-data.disk-cache.enabled", true)
+                ? new PlayerDiskCache(plugin, new File(plugin.getDataFolder(), "player-cache.dat"))
+                : null;
+        updateCacheDuration();
     }
     
     /**
@@ -27,12 +44,37 @@ public class PlayerDataCache {
      * @param data Spielerdaten
      */
     public void cacheData(String username, Map<String, Object> data) {
+        cacheData(username, data, PlayerFieldResolver.ALL_PROVIDERS, System.currentTimeMillis());
+    }
+    
+    /**
+     * Fügt teilweise ermittelte Spielerdaten zum Cache hinzu
+     * 
+     * @param username Spielername
+     * @param data Spielerdaten
+     * @param resolvedProviders Provider, deren Felder in den Daten bereits ermittelt wurden
+     * @param timestamp Zeitpunkt, ab dem die Gültigkeit des Eintrags zählt
+     */
+    public void cacheData(String username, Map<String, Object> data, Set<String> resolvedProviders, long timestamp) {
+        cacheData(username, data, resolvedProviders, timestamp, false);
+    }
+    
+    /**
+     * Fügt teilweise ermittelte Spielerdaten zum Cache hinzu
+     * 
+     * @param username Spielername
+     * @param data Spielerdaten
+     * @param resolvedProviders Provider, deren Felder in den Daten bereits ermittelt wurden
+     * @param timestamp Zeitpunkt, ab dem die Gültigkeit des Eintrags zählt
+     * @param persisted true, wenn die Daten aus dem Festplatten-Cache stammen (längere Gültigkeit)
+     */
+    public void cacheData(String username, Map<String, Object> data, Set<String> resolvedProviders, long timestamp, boolean persisted) {
         if (username == null || data == null) return;
         
-        cache.put(username.toLowerCase(), new CacheEntry(data));
+        store(username.toLowerCase(), new CacheEntry(data, resolvedProviders, timestamp, persisted), false);
         
-        if (plugin.getConfig().getBoolean("debug.enabled")) {
-            plugin.getLogger().info("Cached data for player: " + username);
+        if (plugin.getAccessLog().isDebugEnabled()) {
+            plugin.getAccessLog().debug("cache-store", username);
         }
     }
     
@@ -43,18 +85,94 @@ public class PlayerDataCache {
      * @return Spielerdaten oder null, wenn nicht im Cache oder abgelaufen
      */
     public Map<String, Object> getCachedData(String username) {
+        CacheEntry entry = getCachedEntry(username);
+        return entry != null ? entry.data : null;
+    }
+    
+    /**
+     * Ruft einen Cache-Eintrag inklusive der bereits ermittelten Provider ab
+     * Bei einem Fehltreffer im Speicher wird die Festplattenstufe befragt.
+     * 
+     * @param username Spielername
+     * @return Cache-Eintrag oder null, wenn nicht im Cache oder abgelaufen
+     */
+    public CacheEntry getCachedEntry(String username) {
+        return getCachedEntry(username, 0);
+    }
+    
+    /**
+     * Ruft einen Cache-Eintrag ab, der auch über die Cache-Dauer hinaus noch verwendet werden darf
+     * (z.B. wenn der Server unter Last steht und keine Daten neu ermittelt werden sollen)
+     * 
+     * @param username Spielername
+     * @param staleToleranceMillis Zusätzliche Gültigkeit abgelaufener Einträge in Millisekunden
+     * @return Cache-Eintrag oder null, wenn nicht im Cache oder zu alt
+     */
+    public CacheEntry getCachedEntry(String username, long staleToleranceMillis) {
         if (username == null) return null;
         
-        CacheEntry entry = cache.get(username.toLowerCase());
-        if (entry == null) return null;
+        String key = username.toLowerCase();
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null) {
+                // Prüfen, ob der Cache noch gültig ist
+                if (System.currentTimeMillis() - entry.timestamp <= maxAgeMillis(entry) + staleToleranceMillis) {
+                    return entry;
+                }
+                cache.remove(key);
+            }
+        }
+        
+        if (diskCache == null) return null;
+        
+        PlayerDiskCache.StoredEntry stored = diskCache.get(key);
+        if (stored == null) return null;
         
-        // Prüfen, ob der Cache noch gültig ist
-        if (System.currentTimeMillis() - entry.timestamp > cacheDuration * 1000) {
-            cache.remove(username.toLowerCase());
+        // Für die Gültigkeit zählt der Zeitpunkt der Ermittlung, nicht der des Ladens
+        if (System.currentTimeMillis() - stored.timestamp > diskCacheDuration * 1000L) {
+            diskCache.remove(key);
             return null;
         }
         
-        return entry.data;
+        // In die Speicherstufe übernehmen, die Gültigkeit des Festplatten-Caches bleibt erhalten
+        CacheEntry promoted = new CacheEntry(stored.data, stored.resolvedProviders, stored.timestamp, true);
+        store(key, promoted, true);
+        return promoted;
+    }
+    
+    /**
+     * Gibt die zuletzt gespeicherten Daten eines Spielers unabhängig von ihrem Alter zurück,
+     * ohne sie in die Speicherstufe zu übernehmen (z.B. zum Vergleich mit ausgelieferten Daten)
+     * 
+     * @param username Spielername
+     * @return Spielerdaten oder null, wenn weder Speicher noch Festplatte einen Eintrag haben
+     */
+    public Map<String, Object> peekData(String username) {
+        if (username == null) return null;
+        
+        String key = username.toLowerCase();
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null) return entry.data;
+        }
+        
+        if (diskCache == null) return null;
+        PlayerDiskCache.StoredEntry stored = diskCache.get(key);
+        return stored != null ? stored.data : null;
+    }
+    
+    /**
+     * Prüft, ob ein Eintrag noch innerhalb seiner regulären Cache-Dauer liegt
+     * 
+     * @param entry Cache-Eintrag
+     * @return true, wenn die Daten nicht veraltet sind
+     */
+    public boolean isFresh(CacheEntry entry) {
+        return System.currentTimeMillis() - entry.timestamp <= maxAgeMillis(entry);
+    }
+    
+    private long maxAgeMillis(CacheEntry entry) {
+        return (entry.persisted ? diskCacheDuration : cacheDuration) * 1000L;
     }
     
     /**
@@ -64,22 +182,71 @@ public class PlayerDataCache {
      */
     public void invalidateCache(String username) {
         if (username == null) return;
-        cache.remove(username.toLowerCase());
+        String key = username.toLowerCase();
+        synchronized (cache) {
+            cache.remove(key);
+        }
+        if (diskCache != null) {
+            diskCache.remove(key);
+        }
     }
     
     /**
      * Leert den gesamten Cache
      */
     public void clearCache() {
-        cache.clear();
+        synchronized (cache) {
+            cache.clear();
+        }
+        if (diskCache != null) {
+            diskCache.clear();
+        }
         plugin.getLogger().info("Player data cache cleared");
     }
     
+    /**
+     * Schreibt die Daten aller Offline-Spieler aus dem Speicher auf die Festplatte
+     * und schließt die Cache-Datei. Wird beim Deaktivieren des Plugins aufgerufen.
+     */
+    public void shutdown() {
+        if (diskCache == null) return;
+        
+        Map<String, PlayerDiskCache.StoredEntry> pending = new HashMap<>();
+        synchronized (cache) {
+            for (Map.Entry<String, CacheEntry> entry : cache.entrySet()) {
+                if (isPersistable(entry.getValue())) {
+                    pending.put(entry.getKey(), entry.getValue().toStoredEntry());
+                }
+            }
+        }
+        
+        diskCache.flush();
+        diskCache.compact(pending, diskCacheDuration * 1000L);
+        plugin.getLogger().info("Player data cache: Saved " + diskCache.size() + " entries to disk");
+        diskCache.close();
+    }
+    
+    /**
+     * Liest den Index der Festplattenstufe vorab ein, damit die erste Anfrage nicht darauf wartet
+     * Wird beim Plugin-Start außerhalb des Haupt-Threads aufgerufen.
+     */
+    public void warmUp() {
+        if (diskCache != null) {
+            diskCache.load();
+        }
+    }
+    
     /**
      * Aktualisiert die Cache-Dauer aus der Konfiguration
      */
     public void updateCacheDuration() {
-        this.cacheDuration = plugin.getConfig().getInt("player-data.cache-duration", 300);
+        FileConfiguration config = plugin.getConfig();
+        this.cacheDuration = config.getInt("player-data.cache-duration", 300);
+        this.diskCacheDuration = config.getInt("player-data.disk-cache.duration", 86400);
+        this.maxMemoryEntries = Math.max(1, config.getInt("player-data.cache-max-memory-entries", 1000));
+        if (diskCache != null) {
+            diskCache.setMaxAge(diskCacheDuration * 1000L);
+        }
     }
     
     /**
@@ -88,19 +255,97 @@ public class PlayerDataCache {
      * @return Anzahl der Einträge im Cache
      */
     public int getCacheSize() {
-        return cache.size();
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+    /**
+     * Gibt die Anzahl der Einträge in der Festplattenstufe zurück
+     * 
+     * @return Anzahl der Einträge auf der Festplatte
+     */
+    public int getDiskCacheSize() {
+        return diskCache != null ? diskCache.size() : 0;
+    }
+    
+    /**
+     * Legt einen Eintrag in der Speicherstufe ab und begrenzt deren Größe. Der am längsten
+     * nicht genutzte Eintrag wandert dabei auf die Festplatte.
+     * 
+     * @param key Cache-Schlüssel
+     * @param entry Cache-Eintrag
+     * @param onlyIfAbsent true, wenn ein vorhandener Eintrag nicht ersetzt werden soll
+     */
+    private void store(String key, CacheEntry entry, boolean onlyIfAbsent) {
+        String evictedKey = null;
+        CacheEntry evicted = null;
+        synchronized (cache) {
+            if (onlyIfAbsent) {
+                cache.putIfAbsent(key, entry);
+            } else {
+                cache.put(key, entry);
+            }
+            if (cache.size() > maxMemoryEntries) {
+                Iterator<Map.Entry<String, CacheEntry>> eldest = cache.entrySet().iterator();
+                Map.Entry<String, CacheEntry> candidate = eldest.next();
+                evictedKey = candidate.getKey();
+                evicted = candidate.getValue();
+                eldest.remove();
+            }
+        }
+        
+        if (evicted != null && diskCache != null && isPersistable(evicted)) {
+            diskCache.put(evictedKey, evicted.toStoredEntry());
+        }
+    }
+    
+    /**
+     * Daten von Online-Spielern ändern sich laufend und werden nicht persistiert. Fehlt das
+     * Feld isOnline (Teilabfrage mit ?fields=), ist unbekannt, ob der Spieler offline ist.
+     */
+    private static boolean isPersistable(CacheEntry entry) {
+        return Boolean.FALSE.equals(entry.data.get("isOnline"));
     }
     
     /**
      * Innere Klasse für Cache-Einträge mit Zeitstempel
      */
-    private static class CacheEntry {
+    public static class CacheEntry {
         final Map<String, Object> data;
+        final Set<String> resolvedProviders;
         final long timestamp;
+        final boolean persisted;
         
-        public CacheEntry(Map<String, Object> data) {
+        public CacheEntry(Map<String, Object> data, Set<String> resolvedProviders, long timestamp) {
+            this(data, resolvedProviders, timestamp, false);
+        }
+        
+        CacheEntry(Map<String, Object> data, Set<String> resolvedProviders, long timestamp, boolean persisted) {
             this.data = new HashMap<>(data);
-            this.timestamp = System.currentTimeMillis();
+            this.resolvedProviders = new HashSet<>(resolvedProviders);
+            this.timestamp = timestamp;
+            this.persisted = persisted;
+        }
+        
+        public Map<String, Object> getData() {
+            return data;
+        }
+        
+        public Set<String> getResolvedProviders() {
+            return resolvedProviders;
+        }
+        
+        public long getTimestamp() {
+            return timestamp;
+        }
+        
+        public boolean isPersisted() {
+            return persisted;
+        }
+        
+        PlayerDiskCache.StoredEntry toStoredEntry() {
+            return new PlayerDiskCache.StoredEntry(data, resolvedProviders, timestamp);
         }
     }
 }
@@ -0,0 +1,451 @@
+package de.springisfm.discordplayerinfo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Festplatten-Stufe des Spielerdaten-Caches
+ * Speichert Einträge in einer Append-Only-Datei und hält nur einen Index
+ * (Schlüssel -> Datei-Offset) im Speicher, damit Daten von Offline-Spielern
+ * einen Neustart überleben, ohne den Heap zu belasten.
+ * Schreibzugriffe (Einträge und Tombstones) übernimmt ein Hintergrund-Thread, damit
+ * Aufrufer im Haupt-Thread nie auf die Datei warten. Bis dahin liegen sie in einer
+ * Warteschlange, die Lesezugriffe vorrangig berücksichtigen. Derselbe Thread verdichtet
+ * die Datei regelmäßig, sobald sie überwiegend aus überholten Datensätzen besteht.
+ */
+public class PlayerDiskCache {
+    private static final int MAGIC = 0x44504943; // "DPIC"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final byte RECORD_ENTRY = 1;
+    private static final byte RECORD_TOMBSTONE = 0;
+    private static final long COMPACT_CHECK_MINUTES = 5;
+    private static final int COMPACT_MIN_DEAD_RECORDS = 1000;
+    private static final StoredEntry TOMBSTONE = new StoredEntry(Collections.emptyMap(), Collections.emptySet(), 0);
+    
+    private static final Gson GSON = new GsonBuilder()
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+            .create();
+    private static final Type DATA_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+    
+    private final DiscordPlayerInfo plugin;
+    private final File file;
+    private final Map<String, Long> index;
+    // Noch nicht geschriebene Änderungen (letzter Stand pro Schlüssel, TOMBSTONE = gelöscht)
+    private final Map<String, StoredEntry> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+    private RandomAccessFile raf;
+    private volatile boolean loaded = false;
+    private volatile long maxAgeMillis = Long.MAX_VALUE;
+    private long records;
+    
+    public PlayerDiskCache(DiscordPlayerInfo plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+        this.index = new ConcurrentHashMap<>();
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DiscordPlayerInfo-DiskCache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::compactIfNeeded, COMPACT_CHECK_MINUTES, COMPACT_CHECK_MINUTES, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Setzt das maximale Alter, das Einträge bei der Verdichtung behalten dürfen
+     * 
+     * @param maxAgeMillis Maximales Alter in Millisekunden
+     */
+    public void setMaxAge(long maxAgeMillis) {
+        this.maxAgeMillis = maxAgeMillis;
+    }
+    
+    /**
+     * Ruft einen Eintrag von der Festplatte ab. Die Datei wird beim ersten Zugriff
+     * geöffnet und der Index aufgebaut.
+     * 
+     * @param key Cache-Schlüssel (Spielername in Kleinbuchstaben)
+     * @return Gespeicherter Eintrag oder null, wenn nicht vorhanden
+     */
+    public StoredEntry get(String key) {
+        StoredEntry queued = pending.get(key);
+        if (queued != null) {
+            return queued != TOMBSTONE ? queued : null;
+        }
+        if (!ensureLoaded()) return null;
+        
+        // Index und Datei nur gemeinsam unter der Sperre lesen, compact() und clear() tauschen beide aus
+        synchronized (this) {
+            Long offset = index.get(key);
+            if (offset == null || raf == null) return null;
+            try {
+                raf.seek(offset);
+                if (raf.readByte() != RECORD_ENTRY) return null;
+                String storedKey = raf.readUTF();
+                if (!storedKey.equals(key)) {
+                    plugin.getLogger().warning("Disk cache index points to the record of " + storedKey + " instead of " + key);
+                    index.remove(key);
+                    return null;
+                }
+                long timestamp = raf.readLong();
+                Set<String> resolvedProviders = splitProviders(raf.readUTF());
+                byte[] json = new byte[raf.readInt()];
+                raf.readFully(json);
+                Map<String, Object> data = GSON.fromJson(new String(json, StandardCharsets.UTF_8), DATA_TYPE);
+                return new StoredEntry(data, resolvedProviders, timestamp);
+            } catch (IOException | RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to read disk cache entry for " + key, e);
+                index.remove(key);
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Hängt einen Eintrag an die Cache-Datei an (asynchron)
+     * 
+     * @param key Cache-Schlüssel
+     * @param entry Spielerdaten mit Zeitstempel und ermittelten Providern
+     */
+    public void put(String key, StoredEntry entry) {
+        enqueue(key, entry);
+    }
+    
+    /**
+     * Entfernt einen Eintrag, indem ein Tombstone angehängt wird (asynchron).
+     * Wird u.a. im Haupt-Thread aufgerufen und greift daher nicht selbst auf die Datei zu.
+     * 
+     * @param key Cache-Schlüssel
+     */
+    public void remove(String key) {
+        enqueue(key, TOMBSTONE);
+    }
+    
+    /**
+     * Leert die Cache-Datei vollständig
+     */
+    public synchronized void clear() {
+        pending.clear();
+        if (!ensureLoaded()) return;
+        
+        try {
+            index.clear();
+            records = 0;
+            raf.setLength(0);
+            writeHeader(raf);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to clear disk cache", e);
+        }
+    }
+    
+    /**
+     * Schreibt die Datei neu: übernimmt alle noch gültigen Einträge sowie die übergebenen
+     * Einträge aus dem Speicher und verwirft überschriebene oder gelöschte Datensätze.
+     * 
+     * @param entries Einträge aus dem Speicher, die zusätzlich persistiert werden sollen
+     * @param maxAgeMillis Maximales Alter eines Eintrags, ältere werden verworfen
+     */
+    public synchronized void compact(Map<String, StoredEntry> entries, long maxAgeMillis) {
+        if (!ensureLoaded()) return;
+        
+        long now = System.currentTimeMillis();
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        Map<String, Long> newIndex = new HashMap<>();
+        
+        try (RandomAccessFile out = new RandomAccessFile(tempFile, "rw")) {
+            out.setLength(0);
+            writeHeader(out);
+            
+            for (String key : index.keySet()) {
+                if (entries.containsKey(key)) continue;
+                StoredEntry entry = get(key);
+                if (entry == null || now - entry.timestamp > maxAgeMillis) continue;
+                newIndex.put(key, out.getFilePointer());
+                writeEntry(out, key, entry);
+            }
+            
+            for (Map.Entry<String, StoredEntry> entry : entries.entrySet()) {
+                if (now - entry.getValue().timestamp > maxAgeMillis) continue;
+                newIndex.put(entry.getKey(), out.getFilePointer());
+                writeEntry(out, entry.getKey(), entry.getValue());
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to compact disk cache", e);
+            tempFile.delete();
+            return;
+        }
+        
+        try {
+            raf.close();
+            Files.move(tempFile.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            raf = new RandomAccessFile(file, "rw");
+            index.clear();
+            index.putAll(newIndex);
+            records = newIndex.size();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to replace disk cache file", e);
+            raf = null;
+            index.clear();
+            loaded = false;
+        }
+    }
+    
+    /**
+     * Schreibt ausstehende Änderungen, beendet den Hintergrund-Thread und schließt die Cache-Datei
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (String key : pending.keySet()) {
+            applyPending(key);
+        }
+        closeFile();
+    }
+    
+    /**
+     * Wartet, bis alle ausstehenden Änderungen geschrieben sind (z.B. vor einer Verdichtung beim Beenden)
+     */
+    public void flush() {
+        if (writer.isShutdown()) return;
+        try {
+            writer.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to flush disk cache", e);
+        }
+    }
+    
+    private synchronized void closeFile() {
+        if (raf == null) return;
+        
+        try {
+            raf.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close disk cache", e);
+        }
+        raf = null;
+        index.clear();
+        loaded = false;
+    }
+    
+    /**
+     * Öffnet die Datei und baut den Index sofort auf statt erst beim ersten Zugriff
+     * 
+     * @return true, wenn die Datei nutzbar ist
+     */
+    public boolean load() {
+        return ensureLoaded();
+    }
+    
+    /**
+     * Gibt die Anzahl der Einträge auf der Festplatte zurück
+     * 
+     * @return Anzahl der indizierten Einträge
+     */
+    public int size() {
+        return index.size();
+    }
+    
+    /**
+     * Merkt eine Änderung vor und lässt sie vom Hintergrund-Thread schreiben
+     */
+    private void enqueue(String key, StoredEntry entry) {
+        pending.put(key, entry);
+        if (entry == TOMBSTONE) {
+            index.remove(key);
+        }
+        try {
+            writer.execute(() -> applyPending(key));
+        } catch (RejectedExecutionException e) {
+            // Nach dem Beenden schreibt close() verbliebene Änderungen
+        }
+    }
+    
+    /**
+     * Schreibt den aktuell vorgemerkten Stand eines Schlüssels (nur im Hintergrund-Thread bzw. beim Beenden)
+     */
+    private void applyPending(String key) {
+        StoredEntry entry = pending.get(key);
+        if (entry == null || !ensureLoaded()) return;
+        
+        synchronized (this) {
+            if (raf != null) {
+                try {
+                    long offset = raf.length();
+                    raf.seek(offset);
+                    if (entry == TOMBSTONE) {
+                        index.remove(key);
+                        raf.writeByte(RECORD_TOMBSTONE);
+                        raf.writeUTF(key);
+                    } else {
+                        writeEntry(raf, key, entry);
+                        index.put(key, offset);
+                    }
+                    records++;
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "Failed to write disk cache entry for " + key, e);
+                }
+            }
+            // Nur entfernen, wenn inzwischen keine neuere Änderung vorgemerkt wurde
+            pending.remove(key, entry);
+        }
+    }
+    
+    /**
+     * Verdichtet die Datei, wenn die überholten Datensätze überwiegen (nur im Hintergrund-Thread)
+     */
+    private void compactIfNeeded() {
+        if (!loaded) return;
+        
+        long dead;
+        synchronized (this) {
+            dead = records - index.size();
+        }
+        if (dead >= COMPACT_MIN_DEAD_RECORDS && dead > index.size()) {
+            long start = System.nanoTime();
+            compact(Collections.emptyMap(), maxAgeMillis);
+            if (plugin.getConfig().getBoolean("debug.enabled")) {
+                plugin.getLogger().info(String.format("Disk cache compacted: %d dead records removed in %.1f ms",
+                        dead, (System.nanoTime() - start) / 1_000_000.0));
+            }
+        }
+    }
+    
+    /**
+     * Öffnet die Datei und baut den Index auf, falls noch nicht geschehen
+     * 
+     * @return true, wenn die Datei nutzbar ist
+     */
+    private boolean ensureLoaded() {
+        if (loaded) return true;
+        
+        synchronized (this) {
+            if (loaded) return true;
+            
+            try {
+                if (!file.getParentFile().exists()) {
+                    file.getParentFile().mkdirs();
+                }
+                raf = new RandomAccessFile(file, "rw");
+                
+                if (raf.length() < HEADER_SIZE || raf.readInt() != MAGIC || raf.readInt() != FORMAT_VERSION) {
+                    raf.setLength(0);
+                    writeHeader(raf);
+                } else {
+                    buildIndex();
+                }
+                
+                loaded = true;
+                if (plugin.getConfig().getBoolean("debug.enabled")) {
+                    plugin.getLogger().info("Disk cache loaded with " + index.size() + " entries");
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to open disk cache " + file.getName(), e);
+            }
+            return loaded;
+        }
+    }
+    
+    /**
+     * Liest alle Datensätze ein, ohne die Nutzdaten zu deserialisieren.
+     * Ein unvollständiger letzter Datensatz (z.B. nach einem Absturz) wird abgeschnitten.
+     */
+    private void buildIndex() throws IOException {
+        long length = raf.length();
+        long offset = HEADER_SIZE;
+        
+        try {
+            while (offset < length) {
+                raf.seek(offset);
+                byte type = raf.readByte();
+                String key = raf.readUTF();
+                
+                if (type == RECORD_ENTRY) {
+                    raf.readLong();
+                    raf.readUTF();
+                    int size = raf.readInt();
+                    if (size < 0 || raf.getFilePointer() + size > length) {
+                        throw new EOFException();
+                    }
+                    raf.seek(raf.getFilePointer() + size);
+                    index.put(key, offset);
+                } else {
+                    index.remove(key);
+                }
+                records++;
+                offset = raf.getFilePointer();
+            }
+        } catch (EOFException e) {
+            plugin.getLogger().warning("Disk cache was truncated, discarding incomplete record");
+            raf.setLength(offset);
+        }
+    }
+    
+    private static void writeHeader(RandomAccessFile out) throws IOException {
+        out.seek(0);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+    }
+    
+    private static void writeEntry(RandomAccessFile out, String key, StoredEntry entry) throws IOException {
+        byte[] json = GSON.toJson(entry.data).getBytes(StandardCharsets.UTF_8);
+        out.writeByte(RECORD_ENTRY);
+        out.writeUTF(key);
+        out.writeLong(entry.timestamp);
+        out.writeUTF(String.join(",", entry.resolvedProviders));
+        out.writeInt(json.length);
+        out.write(json);
+    }
+    
+    private static Set<String> splitProviders(String value) {
+        Set<String> providers = new HashSet<>();
+        for (String provider : value.split(",")) {
+            if (!provider.isEmpty()) {
+                providers.add(provider);
+            }
+        }
+        return providers;
+    }
+    
+    /**
+     * Auf der Festplatte gespeicherter Eintrag mit Zeitstempel und den Providern,
+     * deren Felder bereits ermittelt wurden
+     */
+    public static class StoredEntry {
+        final Map<String, Object> data;
+        final Set<String> resolvedProviders;
+        final long timestamp;
+        
+        public StoredEntry(Map<String, Object> data, Set<String> resolvedProviders, long timestamp) {
+            this.data = data;
+            this.resolvedProviders = resolvedProviders;
+            this.timestamp = timestamp;
+        }
+    }
+}
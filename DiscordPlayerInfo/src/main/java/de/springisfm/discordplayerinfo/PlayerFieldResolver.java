@@ -0,0 +1,263 @@
+package de.springisfm.discordplayerinfo;
+
+import net.luckperms.api.model.user.User;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ermittelt die einzelnen Felder der Spielerdaten
+ * Jedes Feld gehört zu einem Provider, der nur dann ausgeführt wird, wenn eines
+ * seiner Felder angefordert wurde. So kostet z.B. eine reine Online-Abfrage
+ * keinen LuckPerms-Ladevorgang.
+ */
+public class PlayerFieldResolver {
+    /**
+     * Felder, die immer enthalten sind
+     */
+    public static final Set<String> IDENTITY_FIELDS = Collections.unmodifiableSet(
+            new LinkedHashSet<>(Arrays.asList("username", "uuid")));
+    
+    private static final Map<String, String> FIELD_PROVIDERS = new LinkedHashMap<>();
+    
+    static {
+        FIELD_PROVIDERS.put("isOnline", "presence");
+        FIELD_PROVIDERS.put("lastSeen", "presence");
+        FIELD_PROVIDERS.put("rank", "rank");
+        FIELD_PROVIDERS.put("rankInfo", "rank");
+        FIELD_PROVIDERS.put("accountAge", "account");
+        FIELD_PROVIDERS.put("firstJoined", "account");
+        FIELD_PROVIDERS.put("displayName", "displayName");
+        FIELD_PROVIDERS.put("timezone", "timezone");
+        FIELD_PROVIDERS.put("afk", "afk");
+        FIELD_PROVIDERS.put("location", "location");
+        FIELD_PROVIDERS.put("avatarUrl", "avatarUrl");
+    }
+    
+    /**
+     * Alle Felder, die über ?fields= angefordert werden können
+     */
+    public static final Set<String> FIELDS = Collections.unmodifiableSet(FIELD_PROVIDERS.keySet());
+    
+    /**
+     * Alle Provider, die für einen vollständigen Datensatz nötig sind
+     */
+    public static final Set<String> ALL_PROVIDERS = Collections.unmodifiableSet(
+            new LinkedHashSet<>(FIELD_PROVIDERS.values()));
+    
+    private final DiscordPlayerInfo plugin;
+    private final Map<String, FieldProvider> providers;
+    
+    public PlayerFieldResolver(DiscordPlayerInfo plugin) {
+        this.plugin = plugin;
+        this.providers = new HashMap<>();
+        providers.put("presence", this::resolvePresence);
+        providers.put("rank", this::resolveRank);
+        providers.put("account", this::resolveAccount);
+        providers.put("displayName", this::resolveDisplayName);
+        providers.put("timezone", this::resolveTimezone);
+        providers.put("afk", this::resolveAfk);
+        providers.put("location", this::resolveLocation);
+        providers.put("avatarUrl", this::resolveAvatarUrl);
+    }
+    
+    /**
+     * Liest den ?fields= Parameter ein
+     * 
+     * @param param Kommagetrennte Feldliste oder null
+     * @return Angeforderte Felder oder null, wenn alle Felder angefordert wurden
+     * @throws IllegalArgumentException bei unbekannten Feldnamen
+     */
+    public static Set<String> parseFields(String param) {
+        if (param == null || param.trim().isEmpty()) return null;
+        
+        Set<String> fields = new LinkedHashSet<>();
+        for (String field : param.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty() || IDENTITY_FIELDS.contains(trimmed)) continue;
+            if (!FIELD_PROVIDERS.containsKey(trimmed)) {
+                throw new IllegalArgumentException("Unknown field '" + trimmed + "', allowed: " + String.join(", ", FIELDS));
+            }
+            fields.add(trimmed);
+        }
+        return fields;
+    }
+    
+    /**
+     * Gibt die Provider zurück, die für die angeforderten Felder ausgeführt werden müssen
+     * 
+     * @param fields Angeforderte Felder oder null für alle
+     * @return Benötigte Provider
+     */
+    public static Set<String> providersFor(Set<String> fields) {
+        if (fields == null) return ALL_PROVIDERS;
+        
+        Set<String> required = new HashSet<>();
+        for (String field : fields) {
+            required.add(FIELD_PROVIDERS.get(field));
+        }
+        return required;
+    }
+    
+    /**
+     * Reduziert die Spielerdaten auf die angeforderten Felder
+     * 
+     * @param data Vollständige oder teilweise ermittelte Spielerdaten
+     * @param fields Angeforderte Felder oder null für alle
+     * @return Projizierte Spielerdaten
+     */
+    public static Map<String, Object> project(Map<String, Object> data, Set<String> fields) {
+        if (fields == null) return data;
+        
+        Map<String, Object> projected = new HashMap<>();
+        for (String field : IDENTITY_FIELDS) {
+            projected.put(field, data.get(field));
+        }
+        for (String field : fields) {
+            if (data.containsKey(field)) {
+                projected.put(field, data.get(field));
+            }
+        }
+        return projected;
+    }
+    
+    /**
+     * Führt die angegebenen Provider aus und schreibt deren Felder in die Spielerdaten
+     * 
+     * @param offlinePlayer Spieler
+     * @param providerNames Auszuführende Provider
+     * @param playerData Ziel-Map
+     */
+    public void resolve(OfflinePlayer offlinePlayer, Set<String> providerNames, Map<String, Object> playerData) {
+        playerData.put("username", offlinePlayer.getName());
+        playerData.put("uuid", offlinePlayer.getUniqueId().toString());
+        
+        for (String name : providerNames) {
+            FieldProvider provider = providers.get(name);
+            if (provider != null) {
+                provider.resolve(offlinePlayer, playerData);
+            }
+        }
+    }
+    
+    private void resolvePresence(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        playerData.put("isOnline", offlinePlayer.isOnline());
+        playerData.put("lastSeen", offlinePlayer.getLastPlayed());
+    }
+    
+    private void resolveRank(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        // Rangdaten über den PermissionsManager abrufen (erweiterte LuckPerms-Integration)
+        PermissionsManager permissionsManager = plugin.getPermissionsManager();
+        if (permissionsManager != null) {
+            Map<String, Object> rankInfo = permissionsManager.getPlayerRankInfo(offlinePlayer.getUniqueId());
+            if (rankInfo != null) {
+                // Die gesamte rankInfo Map in die playerData Map einfügen
+                playerData.put("rank", rankInfo.get("displayName"));
+                playerData.put("rankInfo", rankInfo);
+            } else {
+                playerData.put("rank", "Default");
+            }
+            return;
+        }
+        
+        // Fallback auf einfaches Rang-Format, wenn PermissionsManager nicht verfügbar
+        String rank = "Default";
+        try {
+            if (plugin.getLuckPerms() != null) {
+                User user = plugin.getLuckPerms().getUserManager().loadUser(offlinePlayer.getUniqueId()).join();
+                if (user != null) {
+                    String primaryGroup = user.getPrimaryGroup();
+                    rank = primaryGroup.substring(0, 1).toUpperCase() + primaryGroup.substring(1);
+                }
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to get LuckPerms data for " + offlinePlayer.getName() + ": " + e.getMessage());
+        }
+        playerData.put("rank", rank);
+    }
+    
+    private void resolveAccount(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        // Account-Alter in Tagen berechnen
+        if (offlinePlayer.hasPlayedBefore()) {
+            long firstPlayed = offlinePlayer.getFirstPlayed();
+            long currentTime = System.currentTimeMillis();
+            long accountAgeDays = (currentTime - firstPlayed) / (1000 * 60 * 60 * 24);
+            playerData.put("accountAge", accountAgeDays);
+            playerData.put("firstJoined", firstPlayed);
+        } else {
+            playerData.put("accountAge", 0);
+            playerData.put("firstJoined", 0);
+        }
+    }
+    
+    private void resolveDisplayName(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        Player player = offlinePlayer.getPlayer();
+        if (player != null) {
+            playerData.put("displayName", player.getDisplayName());
+        }
+    }
+    
+    private void resolveTimezone(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        if (!offlinePlayer.isOnline()) return;
+        
+        // Zeitzone vom TimeZoneManager abrufen
+        TimeZoneManager timeZoneManager = plugin.getTimeZoneManager();
+        String timezone = timeZoneManager != null ?
+                timeZoneManager.getPlayerTimeZone(offlinePlayer.getUniqueId()) :
+                plugin.getPluginConfig().getString("player-data.default-timezone");
+        playerData.put("timezone", timezone);
+    }
+    
+    private void resolveAfk(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        // AFK-Status von Essentials, falls verfügbar
+        if (!plugin.isEssentialsEnabled() || !offlinePlayer.isOnline()) return;
+        
+        try {
+            com.earth2me.essentials.Essentials essentials = (com.earth2me.essentials.Essentials)
+                Bukkit.getPluginManager().getPlugin("Essentials");
+            if (essentials != null) {
+                boolean isAfk = essentials.getUser(offlinePlayer.getUniqueId()).isAfk();
+                playerData.put("afk", isAfk);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to get AFK status: " + e.getMessage());
+        }
+    }
+    
+    private void resolveLocation(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        // Spielerposition hinzufügen
+        if (!plugin.getPluginConfig().getBoolean("player-data.include-stats")) return;
+        
+        Player player = offlinePlayer.getPlayer();
+        if (player != null) {
+            Map<String, Object> location = new HashMap<>();
+            location.put("world", player.getWorld().getName());
+            location.put("x", player.getLocation().getBlockX());
+            location.put("y", player.getLocation().getBlockY());
+            location.put("z", player.getLocation().getBlockZ());
+            playerData.put("location", location);
+        }
+    }
+    
+    private void resolveAvatarUrl(OfflinePlayer offlinePlayer, Map<String, Object> playerData) {
+        // Avatar-URL hinzufügen (nutzt Minecraft-Avatar-Dienst)
+        playerData.put("avatarUrl", "https://mc-heads.net/avatar/" + offlinePlayer.getName());
+    }
+    
+    /**
+     * Ermittelt eine Gruppe zusammengehöriger Felder
+     */
+    @FunctionalInterface
+    private interface FieldProvider {
+        void resolve(OfflinePlayer offlinePlayer, Map<String, Object> playerData);
+    }
+}
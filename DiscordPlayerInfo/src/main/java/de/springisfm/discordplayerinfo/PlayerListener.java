@@ -1,11 +1,17 @@
 package de.springisfm.discordplayerinfo;
 
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 
 /**
  * Listener für Spieler-bezogene Events
@@ -19,25 +25,93 @@ public class PlayerListener implements Listener {
     
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
+        long start = System.nanoTime();
+        
         // Spielerdaten-Cache invalidieren, damit neue Daten abgerufen werden
         Player player = event.getPlayer();
         plugin.getPlayerDataCache().invalidateCache(player.getName());
+        plugin.getOnlineRoster().addPlayer(player);
+        plugin.getChangeJournal().record(player.getUniqueId(), ChangeJournal.PRESENCE);
+        if (plugin.getActivityLog() != null) {
+            plugin.getActivityLog().recordJoin(player.getUniqueId(), player.getName());
+        }
+        if (plugin.getSpatialIndex() != null) {
+            plugin.getSpatialIndex().update(player, player.getLocation());
+        }
         
-        // Wenn Debug aktiviert ist, Nachricht loggen
-        if (plugin.getConfig().getBoolean("debug.enabled")) {
-            plugin.getLogger().info("Player " + player.getName() + " joined, invalidated cache entry");
+        // Wenn Debug aktiviert ist, Ereignis ins Access-Log schreiben (asynchron)
+        if (plugin.getAccessLog().isDebugEnabled()) {
+            plugin.getAccessLog().debug("player-join", player.getName());
         }
+        
+        plugin.getTickMonitor().recordMainThreadWork(start);
     }
     
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
+        long start = System.nanoTime();
+        
         // Spielerdaten-Cache invalidieren, damit neue Daten abgerufen werden
         Player player = event.getPlayer();
         plugin.getPlayerDataCache().invalidateCache(player.getName());
+        plugin.getOnlineRoster().removePlayer(player.getUniqueId());
+        plugin.getChangeJournal().record(player.getUniqueId(), ChangeJournal.PRESENCE);
+        if (plugin.getActivityLog() != null) {
+            plugin.getActivityLog().recordQuit(player.getUniqueId());
+        }
+        if (plugin.getSpatialIndex() != null) {
+            plugin.getSpatialIndex().remove(player.getUniqueId());
+        }
+        
+        // Wenn Debug aktiviert ist, Ereignis ins Access-Log schreiben (asynchron)
+        if (plugin.getAccessLog().isDebugEnabled()) {
+            plugin.getAccessLog().debug("player-quit", player.getName());
+        }
+        
+        plugin.getTickMonitor().recordMainThreadWork(start);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        // Wird sehr häufig aufgerufen: nur bei einem Blockwechsel den räumlichen Index anfassen
+        SpatialIndex spatialIndex = plugin.getSpatialIndex();
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (spatialIndex == null || to == null
+                || (from.getBlockX() == to.getBlockX() && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld())) {
+            return;
+        }
         
-        // Wenn Debug aktiviert ist, Nachricht loggen
-        if (plugin.getConfig().getBoolean("debug.enabled")) {
-            plugin.getLogger().info("Player " + player.getName() + " quit, invalidated cache entry");
+        long start = System.nanoTime();
+        spatialIndex.update(event.getPlayer(), to);
+        plugin.getTickMonitor().recordMainThreadWork(start);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (plugin.getSpatialIndex() != null && event.getTo() != null) {
+            plugin.getSpatialIndex().update(event.getPlayer(), event.getTo());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        if (plugin.getSpatialIndex() != null) {
+            plugin.getSpatialIndex().update(event.getPlayer(), event.getRespawnLocation());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        if (plugin.getSpatialIndex() != null) {
+            plugin.getSpatialIndex().addWorld(event.getWorld().getName());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        if (plugin.getSpatialIndex() != null) {
+            plugin.getSpatialIndex().removeWorld(event.getWorld().getName());
         }
     }
 }
@@ -0,0 +1,97 @@
+package de.springisfm.discordplayerinfo;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Antwortformate der API, ausgewählt über den Accept-Header der Anfrage
+ * JSON bleibt der Standard; CBOR und MessagePack liefern dieselben Daten kompakter.
+ */
+public enum ResponseFormat {
+    JSON("application/json; charset=UTF-8"),
+    CBOR("application/cbor"),
+    MSGPACK("application/msgpack");
+    
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+    
+    private final String contentType;
+    
+    ResponseFormat(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    /**
+     * Kodiert ein Antwortobjekt in diesem Format
+     * 
+     * @param value Antwortobjekt (Map, Liste, einfacher Wert)
+     * @return Kodierte Bytes
+     */
+    public byte[] encode(Object value) {
+        switch (this) {
+            case CBOR: return BinaryEncoder.encodeCbor(value);
+            case MSGPACK: return BinaryEncoder.encodeMsgPack(value);
+            default: return GSON.toJson(value).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+    
+    /**
+     * Wählt das Format mit der höchsten Gewichtung (q-Wert) aus dem Accept-Header
+     * 
+     * @param accept Wert des Accept-Headers oder null
+     * @return Unterstütztes Format, ohne passende Angabe JSON
+     */
+    public static ResponseFormat negotiate(String accept) {
+        if (accept == null || accept.isEmpty()) return JSON;
+        
+        ResponseFormat best = JSON;
+        double bestQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            ResponseFormat format = forMediaType(parts[0].trim().toLowerCase(Locale.ROOT));
+            if (format == null) continue;
+            
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            
+            // Bei gleicher Gewichtung gewinnt die erste Angabe
+            if (quality > bestQuality) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+    
+    private static ResponseFormat forMediaType(String mediaType) {
+        switch (mediaType) {
+            case "application/cbor":
+                return CBOR;
+            case "application/msgpack":
+            case "application/x-msgpack":
+            case "application/vnd.msgpack":
+                return MSGPACK;
+            case "application/json":
+            case "application/*":
+            case "*/*":
+                return JSON;
+            default:
+                return null;
+        }
+    }
+}
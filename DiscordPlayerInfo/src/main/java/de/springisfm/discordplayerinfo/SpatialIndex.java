@@ -0,0 +1,322 @@
+package de.springisfm.discordplayerinfo;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Räumlicher Index der Online-Spieler als gleichmäßiges Raster pro Welt
+ * Eine Zelle umfasst 4x4 Chunks (64x64 Blöcke). Die Position eines Spielers wird bei jedem
+ * Blockwechsel aktualisiert, die Zelle nur beim Überschreiten einer Zellgrenze. Schreibende
+ * Zugriffe erfolgen ausschließlich im Hauptthread (Events), API-Anfragen lesen parallel und
+ * durchsuchen nur die Zellen, die den angefragten Bereich überdecken. Auch die Namen der
+ * geladenen Welten werden hier gepflegt, damit API-Threads die Bukkit-API nicht aufrufen müssen.
+ */
+public class SpatialIndex {
+    public static final int CELL_SHIFT = 6;
+    public static final int REGION_SHIFT = 9;
+    // Größte Koordinate innerhalb der Weltgrenze von Minecraft
+    public static final int MAX_COORDINATE = 30_000_000;
+    
+    private final Map<String, WorldIndex> worlds = new ConcurrentHashMap<>();
+    private final Map<UUID, Position> positions = new ConcurrentHashMap<>();
+    private final List<String> worldNames = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Baut den Index vollständig aus den geladenen Welten und den aktuell verbundenen
+     * Spielern neu auf (nur im Hauptthread)
+     */
+    public void rebuild() {
+        worlds.clear();
+        positions.clear();
+        worldNames.clear();
+        for (World world : Bukkit.getWorlds()) {
+            worldNames.add(world.getName());
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            update(player, player.getLocation());
+        }
+    }
+    
+    /**
+     * Aktualisiert die Position eines Spielers (nur im Hauptthread)
+     * 
+     * @param player Spieler
+     * @param location Neue Position
+     */
+    public void update(Player player, Location location) {
+        World world = location != null ? location.getWorld() : null;
+        if (world == null) return;
+        
+        Position position = positions.get(player.getUniqueId());
+        if (position == null) {
+            position = new Position(player.getUniqueId(), player.getName());
+            positions.put(position.uuid, position);
+        }
+        
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        position.y = location.getBlockY();
+        position.xz = pack(x, z);
+        
+        String worldName = world.getName();
+        long cell = pack(x >> CELL_SHIFT, z >> CELL_SHIFT);
+        if (position.cell != cell || !worldName.equals(position.world)) {
+            move(position, worldName, cell);
+        }
+    }
+    
+    /**
+     * Entfernt einen Spieler aus dem Index (nur im Hauptthread)
+     * 
+     * @param playerUUID UUID des Spielers
+     */
+    public void remove(UUID playerUUID) {
+        Position position = positions.remove(playerUUID);
+        if (position == null || position.world == null) return;
+        
+        WorldIndex index = worlds.get(position.world);
+        if (index != null) {
+            index.remove(position.cell, position);
+        }
+    }
+    
+    /**
+     * Merkt sich eine neu geladene Welt (nur im Hauptthread)
+     * 
+     * @param world Name der Welt
+     */
+    public void addWorld(String world) {
+        if (!worldNames.contains(world)) {
+            worldNames.add(world);
+        }
+    }
+    
+    /**
+     * Vergisst eine entladene Welt (nur im Hauptthread)
+     * 
+     * @param world Name der Welt
+     */
+    public void removeWorld(String world) {
+        worldNames.remove(world);
+        worlds.remove(world);
+    }
+    
+    /**
+     * Gibt die Namen der geladenen Welten in der Reihenfolge des Servers zurück
+     * 
+     * @return Unveränderliche Liste der Weltnamen
+     */
+    public List<String> getWorldNames() {
+        return Collections.unmodifiableList(worldNames);
+    }
+    
+    /**
+     * Prüft, ob eine Welt geladen ist
+     * 
+     * @param world Name der Welt
+     * @return true, wenn die Welt bekannt ist
+     */
+    public boolean hasWorld(String world) {
+        return worldNames.contains(world);
+    }
+    
+    /**
+     * Gibt die Anzahl der Spieler in einer Welt zurück
+     * 
+     * @param world Name der Welt
+     * @return Anzahl der Spieler
+     */
+    public int getPlayerCount(String world) {
+        WorldIndex index = worlds.get(world);
+        return index != null ? index.playerCount : 0;
+    }
+    
+    /**
+     * Sucht alle Spieler innerhalb eines Radius (horizontale Entfernung)
+     * 
+     * @param world Name der Welt
+     * @param x Block-X des Mittelpunkts
+     * @param z Block-Z des Mittelpunkts
+     * @param radius Radius in Blöcken
+     * @return Spieler mit Position und Entfernung, aufsteigend nach Entfernung sortiert
+     */
+    public List<Map<String, Object>> findNearby(String world, int x, int z, int radius) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        WorldIndex index = worlds.get(world);
+        if (index == null) return result;
+        
+        // Grenzen in long berechnen, damit x/z + radius nicht überlaufen
+        int minCellX = (int) ((x - (long) radius) >> CELL_SHIFT);
+        int maxCellX = (int) ((x + (long) radius) >> CELL_SHIFT);
+        int minCellZ = (int) ((z - (long) radius) >> CELL_SHIFT);
+        int maxCellZ = (int) ((z + (long) radius) >> CELL_SHIFT);
+        long radiusSquared = (long) radius * radius;
+        
+        // Bei großen Radien gibt es weniger belegte Zellen als Zellen im Suchbereich
+        long area = (long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+        if (area > index.cells.size()) {
+            for (Map.Entry<Long, Set<Position>> entry : index.cells.entrySet()) {
+                long cell = entry.getKey();
+                int cellX = unpackX(cell);
+                int cellZ = unpackZ(cell);
+                if (cellX >= minCellX && cellX <= maxCellX && cellZ >= minCellZ && cellZ <= maxCellZ) {
+                    collect(world, cell, entry.getValue(), x, z, radiusSquared, result);
+                }
+            }
+        } else {
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    long cell = pack(cellX, cellZ);
+                    Set<Position> members = index.cells.get(cell);
+                    if (members != null) {
+                        collect(world, cell, members, x, z, radiusSquared, result);
+                    }
+                }
+            }
+        }
+        
+        result.sort(Comparator.comparingDouble(player -> (Double) player.get("distance")));
+        return result;
+    }
+    
+    /**
+     * Zählt die Spieler pro Region (32x32 Chunks, entspricht einer Region-Datei)
+     * 
+     * @param world Name der Welt
+     * @return Regionen mit Spielern, absteigend nach Anzahl sortiert
+     */
+    public List<Map<String, Object>> countRegions(String world) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        WorldIndex index = worlds.get(world);
+        if (index == null) return result;
+        
+        // Zellen liegen vollständig in einer Region, es genügt also, belegte Zellen zu summieren
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Map.Entry<Long, Set<Position>> entry : index.cells.entrySet()) {
+            int size = entry.getValue().size();
+            if (size == 0) continue;
+            
+            long cell = entry.getKey();
+            long region = pack(unpackX(cell) >> (REGION_SHIFT - CELL_SHIFT), unpackZ(cell) >> (REGION_SHIFT - CELL_SHIFT));
+            counts.merge(region, size, Integer::sum);
+        }
+        
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            Map<String, Object> region = new LinkedHashMap<>();
+            region.put("x", unpackX(entry.getKey()));
+            region.put("z", unpackZ(entry.getKey()));
+            region.put("players", entry.getValue());
+            result.add(region);
+        }
+        result.sort(Comparator.comparingInt(region -> -(Integer) region.get("players")));
+        return result;
+    }
+    
+    private void collect(String world, long cell, Set<Position> members, int x, int z, long radiusSquared,
+                         List<Map<String, Object>> result) {
+        for (Position position : members) {
+            // Während eines Zellwechsels kann ein Spieler kurz in zwei Zellen stehen
+            if (position.cell != cell || !world.equals(position.world)) continue;
+            
+            long xz = position.xz;
+            long dx = unpackX(xz) - x;
+            long dz = unpackZ(xz) - z;
+            long distanceSquared = dx * dx + dz * dz;
+            if (distanceSquared > radiusSquared) continue;
+            
+            Map<String, Object> player = new LinkedHashMap<>();
+            player.put("name", position.name);
+            player.put("uuid", position.uuid.toString());
+            player.put("x", unpackX(xz));
+            player.put("y", position.y);
+            player.put("z", unpackZ(xz));
+            player.put("distance", Math.round(Math.sqrt(distanceSquared) * 10) / 10.0);
+            result.add(player);
+        }
+    }
+    
+    private void move(Position position, String world, long cell) {
+        String previousWorld = position.world;
+        long previousCell = position.cell;
+        
+        // Erst in die neue Zelle eintragen, dann austragen, damit der Spieler nie fehlt
+        position.cell = cell;
+        position.world = world;
+        worlds.computeIfAbsent(world, name -> new WorldIndex()).add(cell, position);
+        
+        if (previousWorld != null) {
+            WorldIndex previous = worlds.get(previousWorld);
+            if (previous != null) {
+                previous.remove(previousCell, position);
+            }
+        }
+    }
+    
+    private static long pack(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+    
+    private static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+    
+    private static int unpackZ(long packed) {
+        return (int) packed;
+    }
+    
+    /**
+     * Letzte bekannte Position eines Spielers
+     * X und Z sind in einem long zusammengefasst, damit Leser nie eine halb aktualisierte Position sehen.
+     */
+    private static class Position {
+        private final UUID uuid;
+        private final String name;
+        private volatile String world;
+        private volatile long cell;
+        private volatile long xz;
+        private volatile int y;
+        
+        Position(UUID uuid, String name) {
+            this.uuid = uuid;
+            this.name = name;
+        }
+    }
+    
+    /**
+     * Belegte Zellen einer Welt
+     */
+    private static class WorldIndex {
+        private final Map<Long, Set<Position>> cells = new ConcurrentHashMap<>();
+        private volatile int playerCount;
+        
+        void add(long cell, Position position) {
+            if (cells.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(position)) {
+                playerCount++;
+            }
+        }
+        
+        void remove(long cell, Position position) {
+            Set<Position> members = cells.get(cell);
+            if (members == null || !members.remove(position)) return;
+            
+            playerCount--;
+            if (members.isEmpty()) {
+                cells.remove(cell);
+            }
+        }
+    }
+}
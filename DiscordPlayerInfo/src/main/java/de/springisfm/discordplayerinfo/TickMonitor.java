@@ -0,0 +1,239 @@
+package de.springisfm.discordplayerinfo;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Überwacht die Auslastung des Servers und die Zeit, die das Plugin im Haupt-Thread verbraucht
+ * Gerät der Server unter Last (niedrige TPS oder hohe MSPT), schaltet das Plugin schrittweise
+ * in einen sparsameren Modus: abgelaufene Cache-Einträge werden (als veraltet markiert) weiter
+ * ausgeliefert statt neu ermittelt, und die Online-Liste wird nur noch gebündelt aktualisiert.
+ * Die Ermittlung von Spielerdaten in API-Threads (Bukkit-, LuckPerms- und Essentials-Abfragen)
+ * wird getrennt gemessen. Sie belastet den Haupt-Thread nicht direkt und wird daher nur über
+ * die längere Gültigkeit des Caches gedrosselt, nicht abgewiesen.
+ */
+public class TickMonitor {
+    /**
+     * Laststufen des Servers
+     */
+    public enum LoadLevel {
+        NORMAL, ELEVATED, CRITICAL
+    }
+    
+    private static final int WINDOW_TICKS = 20;
+    private static final long TICK_NANOS = 50_000_000L;
+    
+    private final DiscordPlayerInfo plugin;
+    private final boolean enabled;
+    private final double elevatedMspt;
+    private final double criticalMspt;
+    private final double elevatedTps;
+    private final double criticalTps;
+    private final int recoverySeconds;
+    private final long maxStaleMillis;
+    
+    // Nur im Haupt-Thread verwendet
+    private BukkitTask task;
+    private long windowStartNanos;
+    private int windowTicks;
+    private long currentTickWork;
+    private long windowWork;
+    private long windowMaxWork;
+    private int calmSeconds;
+    private int ticksSinceSnapshot;
+    
+    // Werte der letzten Auswertung, werden auch aus API-Threads gelesen
+    private volatile LoadLevel level = LoadLevel.NORMAL;
+    private volatile double tps = 20.0;
+    private volatile double mspt;
+    private volatile double pluginMillisPerTick;
+    private volatile double pluginMaxMillisPerTick;
+    private volatile double requestLookupsPerSecond;
+    private volatile double requestMillisPerSecond;
+    private final AtomicLong requestLookups = new AtomicLong();
+    private final AtomicLong requestWork = new AtomicLong();
+    private final AtomicLong staleResponses = new AtomicLong();
+    private final AtomicLong deferredSnapshots = new AtomicLong();
+    
+    public TickMonitor(DiscordPlayerInfo plugin) {
+        this.plugin = plugin;
+        FileConfiguration config = plugin.getConfig();
+        this.enabled = config.getBoolean("throttle.enabled", true);
+        this.elevatedMspt = config.getDouble("throttle.elevated-mspt", 40.0);
+        this.criticalMspt = config.getDouble("throttle.critical-mspt", 50.0);
+        this.elevatedTps = config.getDouble("throttle.elevated-tps", 18.0);
+        this.criticalTps = config.getDouble("throttle.critical-tps", 15.0);
+        this.recoverySeconds = Math.max(1, config.getInt("throttle.recovery-seconds", 10));
+        this.maxStaleMillis = config.getLong("throttle.max-stale-seconds", 900) * 1000L;
+    }
+    
+    /**
+     * Startet die Messung im Haupt-Thread
+     */
+    public void start() {
+        if (!enabled) return;
+        
+        windowStartNanos = System.nanoTime();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+    
+    /**
+     * Beendet die Messung und gibt eine zurückgehaltene Online-Liste frei
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        plugin.getOnlineRoster().setDeferred(false);
+    }
+    
+    /**
+     * Verbucht Arbeit des Plugins im Haupt-Thread (z.B. in Event-Handlern)
+     * 
+     * @param startNanos Startzeitpunkt laut System.nanoTime()
+     */
+    public void recordMainThreadWork(long startNanos) {
+        if (Bukkit.isPrimaryThread()) {
+            currentTickWork += System.nanoTime() - startNanos;
+        }
+    }
+    
+    /**
+     * Verbucht die Ermittlung von Spielerdaten für eine API-Anfrage (in einem API-Thread)
+     * 
+     * @param startNanos Startzeitpunkt laut System.nanoTime()
+     */
+    public void recordRequestWork(long startNanos) {
+        requestLookups.incrementAndGet();
+        requestWork.addAndGet(System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Zählt eine Antwort, die aus einem abgelaufenen Cache-Eintrag bedient wurde
+     */
+    public void recordStaleResponse() {
+        staleResponses.incrementAndGet();
+    }
+    
+    /**
+     * Gibt an, wie lange abgelaufene Cache-Einträge in der aktuellen Laststufe noch
+     * ausgeliefert werden dürfen
+     * 
+     * @return Zusätzliche Gültigkeit in Millisekunden (0 = keine veralteten Daten)
+     */
+    public long getStaleToleranceMillis() {
+        return level == LoadLevel.NORMAL ? 0 : maxStaleMillis;
+    }
+    
+    public LoadLevel getLevel() {
+        return level;
+    }
+    
+    public double getTps() {
+        return tps;
+    }
+    
+    public double getMspt() {
+        return mspt;
+    }
+    
+    public double getPluginMillisPerTick() {
+        return pluginMillisPerTick;
+    }
+    
+    public double getPluginMaxMillisPerTick() {
+        return pluginMaxMillisPerTick;
+    }
+    
+    public double getRequestLookupsPerSecond() {
+        return requestLookupsPerSecond;
+    }
+    
+    public double getRequestMillisPerSecond() {
+        return requestMillisPerSecond;
+    }
+    
+    public long getStaleResponses() {
+        return staleResponses.get();
+    }
+    
+    public long getDeferredSnapshots() {
+        return deferredSnapshots.get();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    private void tick() {
+        long now = System.nanoTime();
+        
+        windowWork += currentTickWork;
+        windowMaxWork = Math.max(windowMaxWork, currentTickWork);
+        currentTickWork = 0;
+        
+        // Online-Liste unter Last nur in größeren Abständen veröffentlichen
+        LoadLevel current = level;
+        if (current != LoadLevel.NORMAL) {
+            ticksSinceSnapshot++;
+            int interval = current == LoadLevel.CRITICAL ? 100 : 20;
+            if (ticksSinceSnapshot >= interval) {
+                ticksSinceSnapshot = 0;
+                if (plugin.getOnlineRoster().flush()) {
+                    deferredSnapshots.incrementAndGet();
+                }
+            }
+        }
+        
+        if (++windowTicks >= WINDOW_TICKS) {
+            evaluate(now);
+        }
+    }
+    
+    private void evaluate(long now) {
+        // Kurzfristige TPS aus den eigenen Messungen, MSPT vom Server (Durchschnitt der letzten 100 Ticks)
+        double elapsedTicks = (double) (now - windowStartNanos) / TICK_NANOS;
+        tps = Math.min(20.0, 20.0 * windowTicks / Math.max(windowTicks, elapsedTicks));
+        mspt = Bukkit.getAverageTickTime();
+        pluginMillisPerTick = windowWork / 1_000_000.0 / windowTicks;
+        pluginMaxMillisPerTick = windowMaxWork / 1_000_000.0;
+        double windowSeconds = (now - windowStartNanos) / 1_000_000_000.0;
+        requestLookupsPerSecond = requestLookups.getAndSet(0) / windowSeconds;
+        requestMillisPerSecond = requestWork.getAndSet(0) / 1_000_000.0 / windowSeconds;
+        
+        windowStartNanos = now;
+        windowTicks = 0;
+        windowWork = 0;
+        windowMaxWork = 0;
+        
+        LoadLevel measured = LoadLevel.NORMAL;
+        if (mspt >= criticalMspt || tps < criticalTps) {
+            measured = LoadLevel.CRITICAL;
+        } else if (mspt >= elevatedMspt || tps < elevatedTps) {
+            measured = LoadLevel.ELEVATED;
+        }
+        
+        // Sofort drosseln, aber erst nach mehreren ruhigen Sekunden wieder lockern
+        LoadLevel current = level;
+        if (measured.ordinal() >= current.ordinal()) {
+            calmSeconds = 0;
+            if (measured != current) {
+                changeLevel(measured);
+            }
+        } else if (++calmSeconds >= recoverySeconds) {
+            calmSeconds = 0;
+            changeLevel(LoadLevel.values()[current.ordinal() - 1]);
+        }
+    }
+    
+    private void changeLevel(LoadLevel newLevel) {
+        plugin.getLogger().info(String.format("Server load %s -> %s (TPS %.1f, MSPT %.1f ms)", level, newLevel, tps, mspt));
+        level = newLevel;
+        ticksSinceSnapshot = 0;
+        plugin.getOnlineRoster().setDeferred(newLevel != LoadLevel.NORMAL);
+    }
+}
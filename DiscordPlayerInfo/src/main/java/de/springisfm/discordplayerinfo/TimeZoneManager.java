@@ -1,5 +1,6 @@
 package de.springisfm.discordplayerinfo;
 
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 
@@ -59,6 +60,10 @@ public class TimeZoneManager {
         playerTimeZones.put(playerUUID, timeZone);
         saveTimeZoneData(); // Zeitzone sofort speichern
         
+        // Gecachte Spielerdaten verwerfen und Änderung für die Delta-Synchronisation melden
+        plugin.getPlayerDataCache().invalidateCache(Bukkit.getOfflinePlayer(playerUUID).getName());
+        plugin.getChangeJournal().record(playerUUID, ChangeJournal.TIMEZONE);
+        
         if (plugin.getConfig().getBoolean("debug.log-timezone-events", false)) {
             plugin.getLogger().info("Set timezone for " + playerUUID + " to " + timeZone);
         }